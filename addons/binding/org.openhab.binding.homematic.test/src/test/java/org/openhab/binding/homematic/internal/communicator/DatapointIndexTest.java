@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.communicator.virtual.VirtualDatapointHandler;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+
+/**
+ * Tests cases for {@link DatapointIndex}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DatapointIndexTest {
+
+    private DatapointIndex index;
+    private HmDevice device;
+    private HmChannel variables;
+
+    @Before
+    public void setUp() {
+        index = new DatapointIndex(Collections.<VirtualDatapointHandler> emptyList());
+        device = new HmDevice();
+        device.setAddress(HmDevice.ADDRESS_GATEWAY_EXTRAS);
+        variables = new HmChannel();
+        variables.setNumber(HmChannel.CHANNEL_NUMBER_VARIABLE);
+        device.addChannel(variables);
+    }
+
+    @Test
+    public void indexedDatapointIsReturned() {
+        HmDatapoint dp = addVariable("alarm");
+        index.addChannel(variables);
+
+        assertSame(dp, index.get(new HmDatapointInfo(dp), device).getDatapoint());
+    }
+
+    @Test
+    public void reloadedDatapointReplacesIndexedDatapoint() {
+        HmDatapoint dp = addVariable("alarm");
+        index.add(dp);
+
+        // the variables are reloaded without re-indexing the channel
+        variables.getDatapoints().clear();
+        HmDatapoint reloadedDp = addVariable("alarm");
+
+        assertNull(index.get(new HmDatapointInfo(dp), device));
+        assertEquals(0, index.size());
+
+        index.add(reloadedDp);
+        assertSame(reloadedDp, index.get(new HmDatapointInfo(dp), device).getDatapoint());
+    }
+
+    @Test
+    public void deletedDatapointIsRemovedOnReload() {
+        HmDatapoint kept = addVariable("alarm");
+        HmDatapoint deleted = addVariable("presence");
+        index.addChannel(variables);
+        assertEquals(2, index.size());
+
+        variables.getDatapoints().clear();
+        HmDatapoint reloaded = addVariable("alarm");
+        index.addChannel(variables);
+
+        assertEquals(1, index.size());
+        assertNull(index.get(new HmDatapointInfo(deleted), device));
+        assertSame(reloaded, index.get(new HmDatapointInfo(kept), device).getDatapoint());
+    }
+
+    @Test
+    public void datapointOfReplacedDeviceIsStale() {
+        HmDatapoint dp = addVariable("alarm");
+        index.addChannel(variables);
+
+        HmDevice reloadedDevice = new HmDevice();
+        reloadedDevice.setAddress(HmDevice.ADDRESS_GATEWAY_EXTRAS);
+
+        assertNull(index.get(new HmDatapointInfo(dp), reloadedDevice));
+    }
+
+    private HmDatapoint addVariable(String name) {
+        HmDatapoint dp = new HmDatapoint(name, name, HmValueType.BOOL, Boolean.FALSE, false, HmParamsetType.VALUES);
+        variables.addDatapoint(dp);
+        return dp;
+    }
+}
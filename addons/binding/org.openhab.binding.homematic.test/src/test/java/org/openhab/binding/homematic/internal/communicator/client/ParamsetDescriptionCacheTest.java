@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+
+/**
+ * Tests cases for {@link ParamsetDescriptionCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ParamsetDescriptionCacheTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("homematic", ".paramsets");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void descriptionsOfAllFirmwaresAreKept() {
+        HmChannel oldFirmware = createChannel("HM-LC-Sw1-FM", "2.4");
+        HmChannel newFirmware = createChannel("HM-LC-Sw1-FM", "2.5");
+
+        ParamsetDescriptionCache cache = new ParamsetDescriptionCache(file);
+        cache.put(oldFirmware, HmParamsetType.VALUES, new Object[] { "old" });
+        cache.put(newFirmware, HmParamsetType.VALUES, new Object[] { "new" });
+        cache.retain(Arrays.asList(oldFirmware.getDevice(), newFirmware.getDevice()));
+        cache.save();
+
+        ParamsetDescriptionCache loadedCache = new ParamsetDescriptionCache(file);
+        loadedCache.load();
+        assertArrayEquals(new Object[] { "old" }, loadedCache.get(oldFirmware, HmParamsetType.VALUES));
+        assertArrayEquals(new Object[] { "new" }, loadedCache.get(newFirmware, HmParamsetType.VALUES));
+    }
+
+    @Test
+    public void unusedFirmwaresAreRemoved() {
+        HmChannel oldFirmware = createChannel("HM-LC-Sw1-FM", "2.4");
+        HmChannel newFirmware = createChannel("HM-LC-Sw1-FM", "2.5");
+
+        ParamsetDescriptionCache cache = new ParamsetDescriptionCache(file);
+        cache.put(oldFirmware, HmParamsetType.VALUES, new Object[] { "old" });
+        cache.put(newFirmware, HmParamsetType.VALUES, new Object[] { "new" });
+        cache.retain(Collections.singletonList(newFirmware.getDevice()));
+
+        assertNull(cache.get(oldFirmware, HmParamsetType.VALUES));
+        assertNotNull(cache.get(newFirmware, HmParamsetType.VALUES));
+    }
+
+    private HmChannel createChannel(String type, String firmware) {
+        HmDevice device = new HmDevice();
+        device.setType(type);
+        device.setFirmware(firmware);
+        HmChannel channel = new HmChannel();
+        channel.setNumber(1);
+        device.addChannel(channel);
+        return channel;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+
+/**
+ * Tests cases for {@link RpcClient}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RpcClientTest {
+
+    @Test
+    public void setDatapointValueAsyncSendsInteractiveRequest() throws Exception {
+        TestRpcClient client = new TestRpcClient(null);
+        client.setDatapointValueAsync(createDatapoint(), true).get(5, TimeUnit.SECONDS);
+
+        assertEquals("setValue", client.methodName);
+        assertEquals(RpcPriority.INTERACTIVE, client.priority);
+        assertNotEquals(Thread.currentThread(), client.thread);
+    }
+
+    @Test
+    public void sendMessageAsyncReturnsResult() throws Exception {
+        TestRpcClient client = new TestRpcClient(null);
+        Object[] result = client.sendMessageAsync(2001, client.createRpcRequest("ping"), RpcPriority.BULK).get(5,
+                TimeUnit.SECONDS);
+
+        assertArrayEquals(new Object[] { "ping" }, result);
+        assertEquals(RpcPriority.BULK, client.priority);
+    }
+
+    @Test
+    public void sendMessageAsyncFailsWithCause() throws Exception {
+        TestRpcClient client = new TestRpcClient(new IOException("Connection refused"));
+        try {
+            client.setDatapointValueAsync(createDatapoint(), true).get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+            assertEquals("Connection refused", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void multicallIsRetriedAfterIoError() throws Exception {
+        TestRpcClient client = new TestRpcClient(new IOException("Connection reset"));
+        List<HmChannel> channels = Collections.singletonList(createChannel());
+        try {
+            client.addChannelDatapoints(channels, HmParamsetType.VALUES);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertEquals("Connection reset", ex.getMessage());
+        }
+        try {
+            client.addChannelDatapoints(channels, HmParamsetType.VALUES);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertEquals("system.multicall", client.methodName);
+            assertEquals(2, client.calls);
+        }
+    }
+
+    @Test
+    public void multicallIsDisabledAfterFaultResponse() throws Exception {
+        TestRpcClient client = new TestRpcClient(new RpcFaultException("-1 Failure"));
+        List<HmChannel> channels = Collections.singletonList(createChannel());
+
+        assertEquals(channels, client.addChannelDatapoints(channels, HmParamsetType.VALUES));
+        assertEquals(channels, client.addChannelDatapoints(channels, HmParamsetType.VALUES));
+        assertEquals(1, client.calls);
+    }
+
+    private HmChannel createChannel() {
+        HmDevice device = new HmDevice();
+        device.setAddress("LEQ0000001");
+        device.setHmInterface(HmInterface.RF);
+        HmChannel channel = new HmChannel();
+        channel.setNumber(1);
+        device.addChannel(channel);
+        return channel;
+    }
+
+    private HmDatapoint createDatapoint() {
+        HmChannel channel = createChannel();
+        HmDatapoint dp = new HmDatapoint("STATE", "", HmValueType.BOOL, false, false, HmParamsetType.VALUES);
+        dp.setChannel(channel);
+        return dp;
+    }
+
+    private static class TestRpcClient extends RpcClient {
+        private final IOException failure;
+        private volatile String methodName;
+        private volatile RpcPriority priority;
+        private volatile Thread thread;
+        private volatile int calls;
+
+        public TestRpcClient(IOException failure) {
+            super(new HomematicConfig());
+            this.failure = failure;
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        protected RpcRequest createRpcRequest(String methodName) {
+            return new BinRpcRequest(methodName, "ISO-8859-1");
+        }
+
+        @Override
+        protected String getRpcCallbackUrl() {
+            return "binary://127.0.0.1:9126";
+        }
+
+        @Override
+        protected Object[] sendMessage(int port, RpcRequest request, RpcPriority priority) throws IOException {
+            this.methodName = request.getMethodName();
+            this.priority = priority;
+            this.thread = Thread.currentThread();
+            calls++;
+            if (failure != null) {
+                throw failure;
+            }
+            return new Object[] { request.getMethodName() };
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Round trip tests for the {@link BinRpcEncoder} and {@link BinRpcDecoder}.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcCodecTest {
+    private static final String ENCODING = "ISO-8859-1";
+
+    private final BinRpcEncoder encoder = new BinRpcEncoder(ENCODING);
+    private final BinRpcDecoder decoder = new BinRpcDecoder(ENCODING);
+
+    @Test
+    public void requestRoundTrip() throws IOException {
+        Map<String, Object> paramset = new HashMap<String, Object>();
+        paramset.put("LEVEL", 0.5);
+        paramset.put("ON_TIME", 120);
+        Date date = new Date(1500000000000L);
+
+        ByteBuffer message = decode(encoder.encodeRequest("putParamset",
+                Arrays.<Object> asList("LEQ0000001:1", true, -42, -3.25, date, paramset, Arrays.asList("a", "b"))));
+
+        assertEquals("putParamset", decoder.readMethodName(message));
+        Object[] values = decoder.readValues(message);
+        assertEquals(7, values.length);
+        assertEquals("LEQ0000001:1", values[0]);
+        assertEquals(Boolean.TRUE, values[1]);
+        assertEquals(-42, values[2]);
+        assertEquals(-3.25, (Double) values[3], 0.000001);
+        assertEquals(date, values[4]);
+        assertEquals(paramset, values[5]);
+        assertArrayEquals(new Object[] { "a", "b" }, (Object[]) values[6]);
+    }
+
+    @Test
+    public void responseRoundTrip() throws IOException {
+        ByteBuffer message = decode(encoder.encodeResponse(new Object[] { "äöü", 0.0, Collections.emptyList() }));
+
+        Object[] values = decoder.readValues(message);
+        assertEquals(1, values.length);
+        Object[] array = (Object[]) values[0];
+        assertEquals("äöü", array[0]);
+        assertEquals(0.0, (Double) array[1], 0.000001);
+        assertArrayEquals(new Object[0], (Object[]) array[2]);
+    }
+
+    @Test
+    public void largeMessageGrowsBuffer() throws IOException {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'x');
+        String value = new String(chars);
+
+        ByteBuffer message = decode(encoder.encodeRequest("setValue", Collections.singletonList(value)));
+
+        assertEquals("setValue", decoder.readMethodName(message));
+        assertArrayEquals(new Object[] { value }, decoder.readValues(message));
+    }
+
+    @Test
+    public void multicallCallsVisitor() throws IOException {
+        Map<String, Object> event = new HashMap<String, Object>();
+        event.put("methodName", "event");
+        event.put("params", Arrays.<Object> asList("openhab-RF", "LEQ0000001:1", "STATE", true));
+        Map<String, Object> call = new HashMap<String, Object>();
+        call.put("methodName", "listDevices");
+        call.put("params", Collections.singletonList("openhab-RF"));
+
+        ByteBuffer message = decode(encoder.encodeRequest("system.multicall",
+                Collections.singletonList(Arrays.asList(event, call))));
+        assertEquals("system.multicall", decoder.readMethodName(message));
+
+        final List<String> visited = new ArrayList<String>();
+        decoder.readMulticall(message, new RpcCallVisitor() {
+
+            @Override
+            public void event(String interfaceId, String address, String key, Object value) {
+                visited.add(interfaceId + " " + address + " " + key + " " + value);
+            }
+
+            @Override
+            public void methodCall(String methodName, Object[] params) {
+                visited.add(methodName + " " + Arrays.toString(params));
+            }
+        });
+        assertEquals(Arrays.asList("openhab-RF LEQ0000001:1 STATE true", "listDevices [openhab-RF]"), visited);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValueIsRejected() {
+        encoder.encodeRequest("setValue", Arrays.asList("LEQ0000001:1", "STATE", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedValueIsRejected() {
+        encoder.encodeResponse(Collections.singletonList(Long.valueOf(1)));
+    }
+
+    /**
+     * Copies the encoded message, the encoder buffer is reused, and reads it like a message from a socket.
+     */
+    private ByteBuffer decode(ByteBuffer encoded) throws IOException {
+        byte[] data = new byte[encoded.remaining()];
+        encoded.get(data);
+        return decoder.readMessage(new ByteArrayInputStream(data));
+    }
+}
@@ -44,9 +44,11 @@ public class HomematicConfig {
     private String callbackHost;
     private int xmlCallbackPort;
     private int binCallbackPort;
+    private boolean nioCallbackServer;
 
     private Integer aliveInterval = 300;
     private int socketMaxAlive = 900;
+    private int socketPoolSize = 2;
     private int timeout = 15;
     private int reconnectInterval = 0;
 
@@ -128,6 +130,20 @@ public class HomematicConfig {
         this.binCallbackPort = binCallbackPort;
     }
 
+    /**
+     * Returns true, if the non-blocking BIN-RPC callback server should be used.
+     */
+    public boolean isNioCallbackServer() {
+        return nioCallbackServer;
+    }
+
+    /**
+     * Sets the flag for the non-blocking BIN-RPC callback server.
+     */
+    public void setNioCallbackServer(boolean nioCallbackServer) {
+        this.nioCallbackServer = nioCallbackServer;
+    }
+
     /**
      * Returns the alive interval in seconds.
      */
@@ -170,6 +186,20 @@ public class HomematicConfig {
         this.socketMaxAlive = socketMaxAlive;
     }
 
+    /**
+     * Returns the max number of socket connections per port to a Homematic gateway.
+     */
+    public int getSocketPoolSize() {
+        return socketPoolSize < 1 ? 1 : socketPoolSize;
+    }
+
+    /**
+     * Sets the max number of socket connections per port to a Homematic gateway.
+     */
+    public void setSocketPoolSize(int socketPoolSize) {
+        this.socketPoolSize = socketPoolSize;
+    }
+
     /**
      * Returns the timeout for the communication to a Homematic gateway in seconds.
      */
@@ -325,10 +355,12 @@ public class HomematicConfig {
         ToStringBuilder tsb = new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE);
         tsb.append("gatewayAddress", gatewayAddress).append("callbackHost", callbackHost)
                 .append("xmlCallbackPort", xmlCallbackPort).append("binCallbackPort", binCallbackPort)
+                .append("nioCallbackServer", nioCallbackServer)
                 .append("gatewayType", gatewayType).append("rfPort", getRfPort()).append("wiredPort", getWiredPort())
                 .append("hmIpPort", getHmIpPort()).append("cuxdPort", getCuxdPort()).append("groupPort", getGroupPort())
                 .append("aliveInterval", aliveInterval).append("reconnectInterval", reconnectInterval)
-                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive);
+                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive)
+                .append("socketPoolSize", socketPoolSize);
         return tsb.toString();
     }
 }
@@ -10,29 +10,38 @@ package org.openhab.binding.homematic.internal.communicator;
 
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
+import org.openhab.binding.homematic.internal.communicator.client.ParamsetDescriptionCache;
 import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.TransferMode;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.server.BinRpcNioServer;
 import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
 import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
 import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
@@ -80,6 +89,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String METADATA_POOL_NAME = "homematicMetadata";
+    private static final long ECHO_EVENT_TIMEOUT_MILLIS = 10000;
 
     private Map<TransferMode, RpcClient> rpcClients = new HashMap<TransferMode, RpcClient>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -87,16 +98,18 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     protected HomematicConfig config;
     private String id;
     private HomematicGatewayListener eventListener;
-    private long lastEventTime = System.currentTimeMillis();
+    private volatile long lastEventTime = System.currentTimeMillis();
     private DelayedExecuter delayedExecutor = new DelayedExecuter();
-    private Set<HmDatapointInfo> echoEvents = Collections.synchronizedSet(new HashSet<HmDatapointInfo>());
+    private ConcurrentMap<HmDatapointInfo, Long> echoEvents = new ConcurrentHashMap<HmDatapointInfo, Long>();
+    private DatapointIndex dpIndex = new DatapointIndex(virtualDatapointHandlers);
     private ScheduledFuture<?> eventTrackerThread;
     private ScheduledFuture<?> connectionTrackerThread;
     private ScheduledFuture<?> reconnectThread;
-    private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
+    private Map<String, HmDevice> devices = new ConcurrentHashMap<String, HmDevice>();
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
-    private boolean cancelLoadAllMetadata;
+    private ParamsetDescriptionCache paramsetDescriptionCache;
+    private volatile boolean cancelLoadAllMetadata;
     private boolean initialized;
 
     static {
@@ -121,6 +134,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.eventListener = eventListener;
+        this.paramsetDescriptionCache = new ParamsetDescriptionCache(new File(ConfigConstants.getUserDataFolder()
+                + File.separator + "homematic" + File.separator + id + ".paramsets"));
     }
 
     /**
@@ -169,6 +184,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             sb.setLength(sb.length() - 2);
         }
         logger.debug("Used Homematic transfer modes: {}", sb.toString());
+        paramsetDescriptionCache.load();
         startClients();
         startServers();
         startWatchdogs();
@@ -186,6 +202,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         stopServers();
         stopClients();
         devices.clear();
+        dpIndex.clear();
         echoEvents.clear();
         availableInterfaces.clear();
         config.setGatewayInfo(null);
@@ -197,8 +214,10 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     protected void startClients() throws IOException {
         for (TransferMode mode : availableInterfaces.values()) {
             if (!rpcClients.containsKey(mode)) {
-                rpcClients.put(mode,
-                        mode == TransferMode.XML_RPC ? new XmlRpcClient(config) : new BinRpcClient(config));
+                RpcClient rpcClient = mode == TransferMode.XML_RPC ? new XmlRpcClient(config)
+                        : new BinRpcClient(config);
+                rpcClient.setParamsetDescriptionCache(paramsetDescriptionCache);
+                rpcClients.put(mode, rpcClient);
             }
         }
     }
@@ -219,8 +238,14 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private void startServers() throws IOException {
         for (TransferMode mode : availableInterfaces.values()) {
             if (!rpcServers.containsKey(mode)) {
-                RpcServer rpcServer = mode == TransferMode.XML_RPC ? new XmlRpcServer(this, config)
-                        : new BinRpcServer(this, config);
+                RpcServer rpcServer;
+                if (mode == TransferMode.XML_RPC) {
+                    rpcServer = new XmlRpcServer(this, config);
+                } else if (config.isNioCallbackServer()) {
+                    rpcServer = new BinRpcNioServer(this, config);
+                } else {
+                    rpcServer = new BinRpcServer(this, config);
+                }
                 rpcServers.put(mode, rpcServer);
                 rpcServer.start();
             }
@@ -372,9 +397,50 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
-        // loading datapoints for all channels
+        // collect one channel for each channel type, the datapoints are cloned into all other channels
+        Map<String, HmChannel> channelsById = new HashMap<String, HmChannel>();
+        Map<HmInterface, List<HmChannel>> channelsByInterface = new HashMap<HmInterface, List<HmChannel>>();
+        for (HmDevice device : deviceDescriptions) {
+            if (!device.isGatewayExtras()) {
+                for (HmChannel channel : device.getChannels()) {
+                    if (!isClonedFromPreviousChannel(channel)) {
+                        String channelId = getChannelId(channel);
+                        if (!channelsById.containsKey(channelId)) {
+                            channelsById.put(channelId, channel);
+                            List<HmChannel> channels = channelsByInterface.get(device.getHmInterface());
+                            if (channels == null) {
+                                channels = new ArrayList<HmChannel>();
+                                channelsByInterface.put(device.getHmInterface(), channels);
+                            }
+                            channels.add(channel);
+                        }
+                    }
+                }
+            }
+        }
+
+        // loading datapoints for all channel types, in parallel for each interface
+        Set<String> failedChannelIds = Collections.synchronizedSet(new HashSet<String>());
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (Entry<HmInterface, List<HmChannel>> entry : channelsByInterface.entrySet()) {
+            futures.add(ThreadPoolManager.getPool(METADATA_POOL_NAME)
+                    .submit(new ChannelMetadataLoader(entry.getKey(), entry.getValue(), failedChannelIds)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading metadata from gateway " + id);
+            } catch (ExecutionException ex) {
+                logger.warn("Error loading metadata from gateway '{}': {}", id, ex.getCause().getMessage());
+            }
+        }
+        paramsetDescriptionCache.retain(deviceDescriptions);
+        paramsetDescriptionCache.save();
+
+        // assemble all devices
         Set<String> loadedDevices = new HashSet<String>();
-        Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
         for (HmDevice device : deviceDescriptions) {
             if (!cancelLoadAllMetadata) {
                 try {
@@ -385,24 +451,18 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                         loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
                     } else {
                         for (HmChannel channel : device.getChannels()) {
-                            logger.trace("  Loading channel {}", channel);
-                            // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
+                            if (isClonedFromPreviousChannel(channel)) {
+                                // speed up metadata generation a little bit for equal channels in the gateway devices
                                 HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
                                 cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
                             } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
-                                if (cachedDatapoints != null) {
-                                    // clone all datapoints
-                                    cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
-                                } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    addChannelDatapoints(channel, HmParamsetType.VALUES);
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
+                                String channelId = getChannelId(channel);
+                                if (failedChannelIds.contains(channelId)) {
+                                    throw new IOException("Metadata for channel " + channel + " not available");
+                                }
+                                HmChannel loadedChannel = channelsById.get(channelId);
+                                if (loadedChannel != channel) {
+                                    cloneAllDatapointsIntoChannel(channel, loadedChannel.getDatapoints().values());
                                 }
                             }
                         }
@@ -418,9 +478,27 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
+            dpIndex.retainDevices(loadedDevices);
         }
     }
 
+    /**
+     * Returns true, if the datapoints of the channel are cloned from the previous channel of the same device.
+     */
+    private boolean isClonedFromPreviousChannel(HmChannel channel) {
+        String deviceType = channel.getDevice().getType();
+        return (DEVICE_TYPE_VIRTUAL.equals(deviceType) || DEVICE_TYPE_VIRTUAL_WIRED.equals(deviceType))
+                && channel.getNumber() > 1;
+    }
+
+    /**
+     * Returns the id of a channel type, consisting of device type, firmware and channel number.
+     */
+    private String getChannelId(HmChannel channel) {
+        return String.format("%s:%s:%s", channel.getDevice().getType(), channel.getDevice().getFirmware(),
+                channel.getNumber());
+    }
+
     /**
      * Loads all datapoints from the gateway.
      */
@@ -478,6 +556,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                     loadScripts(channel);
                     logger.debug("Loaded {} gateway script(s)", datapoints.size());
                 }
+                // the datapoints have been replaced, deleted variables and scripts must not stay in the index
+                dpIndex.addChannel(channel);
             }
         } else {
             logger.debug("Loading values for channel {} of device '{}'", channel, channel.getDevice().getAddress());
@@ -567,7 +647,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             final boolean ignoreVirtualDatapoints) throws IOException, HomematicClientException {
         final HmDatapointInfo dpInfo = new HmDatapointInfo(dp);
         if (dp.isPressDatapoint() || (config.getGatewayInfo().isHomegear() && dp.isVariable())) {
-            echoEvents.add(dpInfo);
+            long delayMillis = (long) (Math.max(dpConfig.getDelay(), 0.0) * 1000);
+            echoEvents.put(dpInfo, System.currentTimeMillis() + delayMillis + ECHO_EVENT_TIMEOUT_MILLIS);
         }
         if (dp.isReadOnly()) {
             logger.warn("Datapoint is readOnly, it is not published to the gateway with id '{}': '{}'", id, dpInfo);
@@ -633,22 +714,21 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                 id);
         lastEventTime = System.currentTimeMillis();
 
-        if (echoEvents.remove(dpInfo)) {
+        if (isEchoEvent(dpInfo)) {
             logger.debug("Echo event detected, ignoring '{}'", dpInfo);
         } else {
             try {
-                HmDatapoint dp = getDatapoint(dpInfo);
+                DatapointIndex.Entry indexedDp = getIndexedDatapoint(dpInfo);
+                HmDatapoint dp = indexedDp.getDatapoint();
                 dp.setValue(newValue);
 
                 eventListener.onStateUpdated(dp);
                 if (dp.isPressDatapoint() && MiscUtils.isTrueValue(dp.getValue())) {
                     disableDatapoint(dp, DEFAULT_DISABLE_DELAY);
                 }
-                for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
-                    if (vdph.canHandleEvent(dp)) {
-                        vdph.handleEvent(this, dp);
-                        eventListener.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
-                    }
+                for (VirtualDatapointHandler vdph : indexedDp.getEventHandlers()) {
+                    vdph.handleEvent(this, dp);
+                    eventListener.onStateUpdated(vdph.getVirtualDatapoint(dp.getChannel()));
                 }
             } catch (HomematicClientException ex) {
                 // ignore datapoint not found
@@ -656,6 +736,39 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Returns true and removes the echo entry, if the event is the echo of a sent datapoint which has not expired.
+     */
+    private boolean isEchoEvent(HmDatapointInfo dpInfo) {
+        Long expires = echoEvents.remove(dpInfo);
+        return expires != null && expires >= System.currentTimeMillis();
+    }
+
+    /**
+     * Removes all expired echo entries.
+     */
+    private void removeExpiredEchoEvents() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Long> it = echoEvents.values().iterator(); it.hasNext();) {
+            if (it.next() < now) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the datapoint with its event handlers from the index. Datapoints added after the device has been
+     * prepared (e.g. new variables) and datapoints which replaced the indexed ones are looked up in the device and
+     * added to the index.
+     */
+    private DatapointIndex.Entry getIndexedDatapoint(HmDatapointInfo dpInfo) throws HomematicClientException {
+        DatapointIndex.Entry indexedDp = dpIndex.get(dpInfo, devices.get(dpInfo.getAddress()));
+        if (indexedDp == null) {
+            indexedDp = dpIndex.add(getDatapoint(dpInfo));
+        }
+        return indexedDp;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -692,6 +805,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
             for (String address : addresses) {
                 logger.debug("Device '{}' removed from gateway with id '{}'", address, id);
                 HmDevice device = devices.remove(address);
+                dpIndex.removeDevice(address);
                 if (device != null) {
                     eventListener.onDeviceDeleted(device);
                 }
@@ -753,6 +867,11 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
 
         }
         devices.put(device.getAddress(), device);
+        for (HmChannel channel : device.getChannels()) {
+            for (HmDatapoint dp : channel.getDatapoints().values()) {
+                dpIndex.add(dp);
+            }
+        }
         logger.debug("Loaded device '{}' ({}) with {} datapoints", device.getAddress(), device.getType(),
                 device.getDatapointCount());
 
@@ -802,6 +921,16 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
          */
         @Override
         public void run() {
+            if (logger.isDebugEnabled()) {
+                for (RpcServer rpcServer : rpcServers.values()) {
+                    if (rpcServer instanceof BinRpcNioServer) {
+                        logger.debug("BIN-RPC server statistics for gateway '{}': {}", id,
+                                ((BinRpcNioServer) rpcServer).getStatistics());
+                    }
+                }
+                logger.debug("Pending delayed events for gateway '{}': {}", id, delayedExecutor.getPendingCount());
+            }
+            removeExpiredEchoEvents();
             int timeSinceLastEvent = (int) ((System.currentTimeMillis() - lastEventTime) / 1000);
             if (timeSinceLastEvent >= config.getAliveInterval()) {
                 logger.info("No event since {} seconds from gateway '{}', restarting RPC server", timeSinceLastEvent,
@@ -818,6 +947,53 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Loads the datapoint metadata for the channels of one interface, batched if the gateway supports it.
+     */
+    private class ChannelMetadataLoader implements Runnable {
+        private HmInterface hmInterface;
+        private List<HmChannel> channels;
+        private Set<String> failedChannelIds;
+
+        public ChannelMetadataLoader(HmInterface hmInterface, List<HmChannel> channels, Set<String> failedChannelIds) {
+            this.hmInterface = hmInterface;
+            this.channels = channels;
+            this.failedChannelIds = failedChannelIds;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            logger.debug("Loading datapoints for {} channel types of interface {}", channels.size(), hmInterface);
+            loadDatapoints(HmParamsetType.MASTER);
+            loadDatapoints(HmParamsetType.VALUES);
+        }
+
+        private void loadDatapoints(HmParamsetType paramsetType) {
+            List<HmChannel> remainingChannels = channels;
+            try {
+                remainingChannels = getRpcClient(hmInterface).addChannelDatapoints(channels, paramsetType);
+            } catch (IOException ex) {
+                logger.debug("Batch loading of {} datapoints for interface {} failed: {}", paramsetType, hmInterface,
+                        ex.getMessage());
+            }
+            for (HmChannel channel : remainingChannels) {
+                if (!cancelLoadAllMetadata) {
+                    try {
+                        logger.trace("    Loading datapoints into channel {}", channel);
+                        addChannelDatapoints(channel, paramsetType);
+                    } catch (IOException ex) {
+                        logger.debug("Can't load {} datapoints for channel {}: {}", paramsetType, channel,
+                                ex.getMessage());
+                        failedChannelIds.add(getChannelId(channel));
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Thread which validates the connection to the gateway and restarts the RPC client if necessary.
      */
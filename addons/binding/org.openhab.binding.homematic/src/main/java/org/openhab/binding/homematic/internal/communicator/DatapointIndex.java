@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.homematic.internal.communicator.virtual.VirtualDatapointHandler;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+
+/**
+ * Index from a {@link HmDatapointInfo} to the datapoint and the virtual datapoint handlers which handle its events.
+ * An entry is stale if its datapoint is no longer the datapoint of the current device and channel, e.g. after the
+ * device has been reloaded or the variables and scripts of the gateway extras have been reloaded.
+ *
+ * @author agent - Initial contribution
+ */
+class DatapointIndex {
+    private final Map<HmDatapointInfo, Entry> entries = new ConcurrentHashMap<HmDatapointInfo, Entry>();
+    private final Collection<VirtualDatapointHandler> virtualDatapointHandlers;
+
+    public DatapointIndex(Collection<VirtualDatapointHandler> virtualDatapointHandlers) {
+        this.virtualDatapointHandlers = virtualDatapointHandlers;
+    }
+
+    /**
+     * Returns the entry of the datapoint or null, if the datapoint is not indexed or the entry is stale. A stale
+     * entry is removed from the index.
+     *
+     * @param dpInfo the datapoint to look up
+     * @param device the current device with the address of the datapoint, may be null
+     */
+    public Entry get(HmDatapointInfo dpInfo, HmDevice device) {
+        Entry entry = entries.get(dpInfo);
+        if (entry != null && isStale(entry, dpInfo, device)) {
+            entries.remove(dpInfo, entry);
+            entry = null;
+        }
+        return entry;
+    }
+
+    private boolean isStale(Entry entry, HmDatapointInfo dpInfo, HmDevice device) {
+        HmChannel channel = entry.datapoint.getChannel();
+        return channel.getDevice() != device || channel.getDatapoint(dpInfo) != entry.datapoint;
+    }
+
+    /**
+     * Adds the datapoint with all virtual datapoint handlers which can handle events of the datapoint to the index.
+     */
+    public Entry add(HmDatapoint dp) {
+        List<VirtualDatapointHandler> eventHandlers = new ArrayList<VirtualDatapointHandler>();
+        for (VirtualDatapointHandler vdph : virtualDatapointHandlers) {
+            if (vdph.canHandleEvent(dp)) {
+                eventHandlers.add(vdph);
+            }
+        }
+        Entry entry = new Entry(dp, eventHandlers);
+        entries.put(new HmDatapointInfo(dp), entry);
+        return entry;
+    }
+
+    /**
+     * Replaces the entries of the channel with its current datapoints.
+     */
+    public void addChannel(HmChannel channel) {
+        removeChannel(channel.getDevice().getAddress(), channel.getNumber());
+        for (HmDatapoint dp : channel.getDatapoints().values()) {
+            add(dp);
+        }
+    }
+
+    /**
+     * Removes all datapoints of the device from the index.
+     */
+    public void removeDevice(String address) {
+        for (Iterator<HmDatapointInfo> it = entries.keySet().iterator(); it.hasNext();) {
+            if (address.equals(it.next().getAddress())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all datapoints of the devices which are not in the given addresses from the index.
+     */
+    public void retainDevices(Collection<String> addresses) {
+        for (Iterator<HmDatapointInfo> it = entries.keySet().iterator(); it.hasNext();) {
+            if (!addresses.contains(it.next().getAddress())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all datapoints from the index.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of indexed datapoints.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void removeChannel(String address, Integer channelNumber) {
+        for (Iterator<HmDatapointInfo> it = entries.keySet().iterator(); it.hasNext();) {
+            HmDatapointInfo dpInfo = it.next();
+            if (address.equals(dpInfo.getAddress()) && channelNumber.equals(dpInfo.getChannel())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * A datapoint with the virtual datapoint handlers which handle its events.
+     */
+    public static class Entry {
+        private final HmDatapoint datapoint;
+        private final List<VirtualDatapointHandler> eventHandlers;
+
+        private Entry(HmDatapoint datapoint, List<VirtualDatapointHandler> eventHandlers) {
+            this.datapoint = datapoint;
+            this.eventHandlers = eventHandlers;
+        }
+
+        /**
+         * Returns the indexed datapoint.
+         */
+        public HmDatapoint getDatapoint() {
+            return datapoint;
+        }
+
+        /**
+         * Returns the virtual datapoint handlers which handle the events of the datapoint.
+         */
+        public List<VirtualDatapointHandler> getEventHandlers() {
+            return eventHandlers;
+        }
+    }
+}
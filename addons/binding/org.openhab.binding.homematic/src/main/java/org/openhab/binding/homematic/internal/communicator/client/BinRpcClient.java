@@ -10,10 +10,13 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
-import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcDecoder;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcRequest;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.communicator.message.RpcUtils;
 import org.openhab.binding.homematic.internal.communicator.parser.RpcResponseParser;
 import org.openhab.binding.homematic.internal.model.HmInterface;
 import org.slf4j.Logger;
@@ -28,10 +31,12 @@ public class BinRpcClient extends RpcClient {
     private static final Logger logger = LoggerFactory.getLogger(BinRpcClient.class);
 
     private SocketHandler socketHandler;
+    private BinRpcDecoder decoder;
 
     public BinRpcClient(HomematicConfig config) {
         super(config);
         socketHandler = new SocketHandler(config);
+        decoder = new BinRpcDecoder(config.getEncoding());
     }
 
     /**
@@ -47,7 +52,7 @@ public class BinRpcClient extends RpcClient {
      */
     @Override
     protected RpcRequest createRpcRequest(String methodName) {
-        return new BinRpcMessage(methodName, config.getEncoding());
+        return new BinRpcRequest(methodName, config.getEncoding());
     }
 
     /**
@@ -71,39 +76,51 @@ public class BinRpcClient extends RpcClient {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest request, RpcPriority priority) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
-        return sendMessage(port, request, 0);
+        return sendMessage(port, request, priority, 0);
     }
 
     /**
-     * Sends the message, retries if there was an error.
+     * Sends the message over a pooled socket, retries with a new socket if there was an error.
      */
-    private Object[] sendMessage(int port, RpcRequest request, int rpcRetryCounter) throws IOException {
-        BinRpcMessage resp = null;
+    private Object[] sendMessage(int port, RpcRequest request, RpcPriority priority, int rpcRetryCounter)
+            throws IOException {
+        Object[] responseData = null;
+        SocketInfo socketInfo = socketHandler.borrowSocket(port, priority);
         try {
-            Socket socket = socketHandler.getSocket(port);
-            socket.getOutputStream().write(request.createMessage());
-            resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
-            return new RpcResponseParser(request).parse(resp.getResponseData());
-        } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
+            Socket socket = socketInfo.getSocket();
+            ((BinRpcRequest) request).writeTo(socket.getOutputStream());
+            ByteBuffer message = decoder.readMessage(socket.getInputStream());
+            responseData = decoder.readValues(message);
+            socketHandler.returnSocket(port, socketInfo);
+            socketInfo = null;
+            return new RpcResponseParser(request).parse(responseData);
+        } catch (RpcFaultException rpcEx) {
             // throw immediately, don't retry the message
             throw rpcEx;
         } catch (IOException ioEx) {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+                socketInfo = null;
+            }
             if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
                 throw ioEx;
             } else {
                 rpcRetryCounter++;
-                logger.debug("BinRpcMessage socket failure, sending message again {}/{}", rpcRetryCounter,
+                logger.debug("BinRpcRequest socket failure, sending message again {}/{}", rpcRetryCounter,
                         MAX_RPC_RETRY);
-                socketHandler.removeSocket(port);
-                return sendMessage(port, request, rpcRetryCounter);
+                return sendMessage(port, request, priority, rpcRetryCounter);
             }
         } finally {
+            if (socketInfo != null) {
+                socketHandler.invalidateSocket(port, socketInfo);
+            }
             if (logger.isTraceEnabled()) {
-                logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
+                logger.trace("Client BinRpcResponse:\n{}",
+                        responseData == null ? "null" : RpcUtils.dumpRpcMessage(null, responseData));
             }
         }
     }
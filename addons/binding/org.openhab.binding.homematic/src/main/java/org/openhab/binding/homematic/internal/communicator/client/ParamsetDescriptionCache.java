@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcDecoder;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcEncoder;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache for paramset descriptions, keyed by device type, firmware, channel number and paramset type. The
+ * descriptions are stored BIN-RPC encoded in a file. Descriptions of all firmware versions in use are kept, entries of
+ * device types and firmware versions which no longer exist on the gateway are removed by {@link #retain(Collection)}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ParamsetDescriptionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ParamsetDescriptionCache.class);
+    private static final String ENCODING = "UTF-8";
+
+    private File file;
+    private Map<String, Object[]> descriptions = new ConcurrentHashMap<String, Object[]>();
+    private volatile boolean modified;
+
+    public ParamsetDescriptionCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the cached paramset description for the channel or null, if the description is not cached.
+     */
+    public Object[] get(HmChannel channel, HmParamsetType paramsetType) {
+        return descriptions.get(getKey(channel, paramsetType));
+    }
+
+    /**
+     * Adds the paramset description for the channel.
+     */
+    public void put(HmChannel channel, HmParamsetType paramsetType, Object[] description) {
+        descriptions.put(getKey(channel, paramsetType), description);
+        modified = true;
+    }
+
+    /**
+     * Removes the descriptions of all device types and firmware versions which are not used by the given devices.
+     */
+    public void retain(Collection<HmDevice> devices) {
+        Set<String> deviceIds = new HashSet<String>();
+        for (HmDevice device : devices) {
+            deviceIds.add(getDeviceId(device));
+        }
+        for (Iterator<String> it = descriptions.keySet().iterator(); it.hasNext();) {
+            String key = it.next();
+            int index = key.lastIndexOf(':', key.lastIndexOf(':') - 1);
+            String deviceId = index < 0 ? key : key.substring(0, index);
+            if (!deviceIds.contains(deviceId)) {
+                logger.debug("Device type and firmware '{}' no longer used, removing cached paramset description '{}'",
+                        deviceId, key);
+                it.remove();
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * Loads the cache from the file.
+     */
+    public void load() {
+        descriptions.clear();
+        modified = false;
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream is = new FileInputStream(file)) {
+            BinRpcDecoder decoder = new BinRpcDecoder(ENCODING);
+            Object cache = decoder.readValue(decoder.readMessage(is));
+            if (cache instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) cache).entrySet()) {
+                    if (entry.getValue() instanceof Object[]) {
+                        descriptions.put(entry.getKey().toString(), (Object[]) entry.getValue());
+                    }
+                }
+            }
+            logger.debug("Loaded {} cached paramset descriptions from {}", descriptions.size(), file);
+        } catch (IOException | RuntimeException ex) {
+            logger.info("Can't load cached paramset descriptions from {}: {}", file, ex.getMessage());
+            descriptions.clear();
+        }
+    }
+
+    /**
+     * Saves the cache to the file, if it has been modified.
+     */
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            file.getParentFile().mkdirs();
+            ByteBuffer buffer = new BinRpcEncoder(ENCODING).encodeResponse(descriptions);
+            try (OutputStream os = new FileOutputStream(tempFile)) {
+                os.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+            }
+            if (file.exists() && !file.delete() || !tempFile.renameTo(file)) {
+                throw new IOException("Can't rename " + tempFile);
+            }
+            logger.debug("Saved {} paramset descriptions to {}", descriptions.size(), file);
+        } catch (IOException ex) {
+            logger.warn("Can't save paramset descriptions to {}: {}", file, ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes all cached descriptions and the file.
+     */
+    public void clear() {
+        descriptions.clear();
+        modified = false;
+        if (file.exists() && !file.delete()) {
+            logger.debug("Can't delete {}", file);
+        }
+    }
+
+    private String getKey(HmChannel channel, HmParamsetType paramsetType) {
+        return getDeviceId(channel.getDevice()) + ":" + channel.getNumber() + ":" + paramsetType;
+    }
+
+    private String getDeviceId(HmDevice device) {
+        return device.getType() + ":" + device.getFirmware();
+    }
+}
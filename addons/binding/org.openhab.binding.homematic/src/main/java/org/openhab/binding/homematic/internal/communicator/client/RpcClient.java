@@ -9,12 +9,18 @@
 package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllScriptsParser;
@@ -45,13 +51,24 @@ import org.slf4j.LoggerFactory;
 public abstract class RpcClient {
     private static final Logger logger = LoggerFactory.getLogger(RpcClient.class);
     protected static final int MAX_RPC_RETRY = 1;
+    private static final String RPC_CLIENT_POOL_NAME = "homematicRpcClient";
+    private static final int MULTICALL_BATCH_SIZE = 50;
 
     protected HomematicConfig config;
+    private ParamsetDescriptionCache paramsetDescriptionCache;
+    private Set<Integer> multicallUnsupportedPorts = Collections.synchronizedSet(new HashSet<Integer>());
 
     public RpcClient(HomematicConfig config) {
         this.config = config;
     }
 
+    /**
+     * Sets the persistent cache for paramset descriptions.
+     */
+    public void setParamsetDescriptionCache(ParamsetDescriptionCache paramsetDescriptionCache) {
+        this.paramsetDescriptionCache = paramsetDescriptionCache;
+    }
+
     /**
      * Disposes the client.
      */
@@ -68,9 +85,63 @@ public abstract class RpcClient {
     protected abstract String getRpcCallbackUrl();
 
     /**
-     * Sends the RPC message to the gateway.
+     * Sends the RPC message to the gateway with the given priority.
+     */
+    protected abstract Object[] sendMessage(int port, RpcRequest request, RpcPriority priority) throws IOException;
+
+    /**
+     * Sends the RPC message to the gateway as bulk request.
+     */
+    protected Object[] sendMessage(int port, RpcRequest request) throws IOException {
+        return sendMessage(port, request, RpcPriority.BULK);
+    }
+
+    /**
+     * Sends the RPC message asynchronously to the gateway with the given priority.
+     */
+    protected CompletableFuture<Object[]> sendMessageAsync(final int port, final RpcRequest request,
+            final RpcPriority priority) {
+        final CompletableFuture<Object[]> future = new CompletableFuture<Object[]>();
+        ThreadPoolManager.getPool(RPC_CLIENT_POOL_NAME).execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    future.complete(sendMessage(port, request, priority));
+                } catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Executes the RPC call asynchronously.
+     */
+    protected CompletableFuture<Void> runAsync(final RpcCall call) {
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        ThreadPoolManager.getPool(RPC_CLIENT_POOL_NAME).execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    call.execute();
+                    future.complete(null);
+                } catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * A RPC call which can be executed asynchronously.
      */
-    protected abstract Object[] sendMessage(int port, RpcRequest request) throws IOException;
+    protected interface RpcCall {
+        public void execute() throws IOException;
+    }
 
     /**
      * Register a callback for the specified interface where the Homematic gateway can send its events.
@@ -144,10 +215,111 @@ public abstract class RpcClient {
      * Loads all datapoint metadata into the given channel.
      */
     public void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
-        RpcRequest request = createRpcRequest("getParamsetDescription");
-        request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
-        request.addArg(paramsetType.toString());
-        new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
+        Object[] description = getCachedParamsetDescription(channel, paramsetType);
+        if (description == null) {
+            RpcRequest request = createRpcRequest("getParamsetDescription");
+            request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
+            request.addArg(paramsetType.toString());
+            description = sendMessage(config.getRpcPort(channel), request);
+            cacheParamsetDescription(channel, paramsetType, description);
+        }
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+    }
+
+    /**
+     * Loads all datapoint metadata into the given channels of one interface, batched with system.multicall requests.
+     * Returns the channels which could not be loaded, they have to be loaded individually.
+     */
+    public List<HmChannel> addChannelDatapoints(List<HmChannel> channels, HmParamsetType paramsetType)
+            throws IOException {
+        List<HmChannel> failedChannels = new ArrayList<HmChannel>();
+        List<HmChannel> batch = new ArrayList<HmChannel>();
+        for (HmChannel channel : channels) {
+            Object[] description = getCachedParamsetDescription(channel, paramsetType);
+            if (description != null) {
+                new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+            } else if (multicallUnsupportedPorts.contains(config.getRpcPort(channel))) {
+                failedChannels.add(channel);
+            } else {
+                batch.add(channel);
+                if (batch.size() == MULTICALL_BATCH_SIZE) {
+                    addChannelDatapointsMulticall(batch, paramsetType, failedChannels);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            addChannelDatapointsMulticall(batch, paramsetType, failedChannels);
+        }
+        return failedChannels;
+    }
+
+    /**
+     * Sends the getParamsetDescription calls for all channels in one system.multicall request.
+     */
+    private void addChannelDatapointsMulticall(List<HmChannel> channels, HmParamsetType paramsetType,
+            List<HmChannel> failedChannels) throws IOException {
+        List<Map<String, Object>> calls = new ArrayList<Map<String, Object>>();
+        for (HmChannel channel : channels) {
+            List<String> params = new ArrayList<String>();
+            params.add(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
+            params.add(paramsetType.toString());
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", "getParamsetDescription");
+            call.put("params", params);
+            calls.add(call);
+        }
+        RpcRequest request = createRpcRequest("system.multicall");
+        request.addArg(calls);
+
+        int port = config.getRpcPort(channels.get(0));
+        Object[] results;
+        try {
+            results = (Object[]) sendMessage(port, request)[0];
+        } catch (RpcFaultException | ClassCastException ex) {
+            // the gateway answered, but not with the results of the calls
+            logger.debug("system.multicall not supported by interface {}, loading metadata individually: {}",
+                    channels.get(0).getDevice().getHmInterface(), ex.getMessage());
+            multicallUnsupportedPorts.add(port);
+            failedChannels.addAll(channels);
+            return;
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            HmChannel channel = channels.get(i);
+            Object result = i < results.length ? results[i] : null;
+            if (result instanceof Object[] && ((Object[]) result).length > 0) {
+                Object[] description = (Object[]) result;
+                cacheParamsetDescription(channel, paramsetType, description);
+                new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+            } else {
+                failedChannels.add(channel);
+            }
+        }
+    }
+
+    private Object[] getCachedParamsetDescription(HmChannel channel, HmParamsetType paramsetType) {
+        return paramsetDescriptionCache == null ? null : paramsetDescriptionCache.get(channel, paramsetType);
+    }
+
+    private void cacheParamsetDescription(HmChannel channel, HmParamsetType paramsetType, Object[] description) {
+        if (paramsetDescriptionCache != null) {
+            paramsetDescriptionCache.put(channel, paramsetType, description);
+        }
+    }
+
+    /**
+     * Loads all datapoint metadata into the given channel asynchronously.
+     */
+    public CompletableFuture<Void> addChannelDatapointsAsync(final HmChannel channel,
+            final HmParamsetType paramsetType) {
+        return runAsync(new RpcCall() {
+
+            @Override
+            public void execute() throws IOException {
+                addChannelDatapoints(channel, paramsetType);
+            }
+        });
     }
 
     /**
@@ -277,7 +449,20 @@ public abstract class RpcClient {
             paramSet.put(dp.getName(), value);
             request.addArg(paramSet);
         }
-        sendMessage(config.getRpcPort(dp.getChannel()), request);
+        sendMessage(config.getRpcPort(dp.getChannel()), request, RpcPriority.INTERACTIVE);
+    }
+
+    /**
+     * Sets the value of the datapoint asynchronously.
+     */
+    public CompletableFuture<Void> setDatapointValueAsync(final HmDatapoint dp, final Object value) {
+        return runAsync(new RpcCall() {
+
+            @Override
+            public void execute() throws IOException {
+                setDatapointValue(dp, value);
+            }
+        });
     }
 
     /**
@@ -287,7 +472,7 @@ public abstract class RpcClient {
         RpcRequest request = createRpcRequest("setSystemVariable");
         request.addArg(dp.getInfo());
         request.addArg(value);
-        sendMessage(config.getRpcPort(dp.getChannel()), request);
+        sendMessage(config.getRpcPort(dp.getChannel()), request, RpcPriority.INTERACTIVE);
     }
 
     /**
@@ -296,7 +481,7 @@ public abstract class RpcClient {
     public void executeScript(HmDatapoint dp) throws IOException {
         RpcRequest request = createRpcRequest("runScript");
         request.addArg(dp.getInfo());
-        sendMessage(config.getRpcPort(dp.getChannel()), request);
+        sendMessage(config.getRpcPort(dp.getChannel()), request, RpcPriority.INTERACTIVE);
     }
 
     /**
@@ -307,7 +492,7 @@ public abstract class RpcClient {
         request.addArg(enable);
         request.addArg(seconds);
         request.addArg(1);
-        sendMessage(config.getRpcPort(hmInterface), request);
+        sendMessage(config.getRpcPort(hmInterface), request, RpcPriority.INTERACTIVE);
     }
 
     /**
@@ -317,7 +502,7 @@ public abstract class RpcClient {
         RpcRequest request = createRpcRequest("deleteDevice");
         request.addArg(device.getAddress());
         request.addArg(flags);
-        sendMessage(config.getRpcPort(device.getHmInterface()), request);
+        sendMessage(config.getRpcPort(device.getHmInterface()), request, RpcPriority.INTERACTIVE);
     }
 
     /**
@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.IOException;
+
+/**
+ * Exception if the gateway answers the RPC call with a fault response.
+ *
+ * @author agent - Initial contribution
+ */
+public class RpcFaultException extends IOException {
+    private static final long serialVersionUID = 3178432640518735172L;
+
+    public RpcFaultException(String message) {
+        super(message);
+    }
+
+}
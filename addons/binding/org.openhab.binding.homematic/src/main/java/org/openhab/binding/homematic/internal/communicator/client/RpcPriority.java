@@ -6,16 +6,14 @@
  * which accompanies this distribution, and is available at
  * http://www.eclipse.org/legal/epl-v10.html
  */
-package org.openhab.io.hueemulation.internal.api;
-
-import java.util.Map;
+package org.openhab.binding.homematic.internal.communicator.client;
 
 /**
- * Hue API data store object
- * 
- * @author Dan Cunningham
+ * Enumeration for the priority of a RPC request, interactive requests are sent before bulk requests.
  *
+ * @author agent - Initial contribution
  */
-public class HueDataStore {
-    public Map<String, HueDevice> lights;
+public enum RpcPriority {
+    INTERACTIVE,
+    BULK;
 }
@@ -11,22 +11,28 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Socket pool with a configurable number of sockets per port. Interactive requests are served before bulk requests
+ * when all sockets of a port are in use.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private static final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private ConcurrentMap<Integer, SocketPool> poolsPerPort = new ConcurrentHashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,40 +40,36 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port, (re)creates it if required. The socket must be given back with
+     * {@link #returnSocket(int, SocketInfo)} or {@link #invalidateSocket(int, SocketInfo)}.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
-            logger.trace("Creating new socket for port {}", port);
-            Socket socket = new Socket();
-            socket.setSoTimeout(config.getTimeout() * 1000);
-            socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
-            }
-            logger.trace("Returning socket for port {}", port);
-        }
-        return socketInfo.getSocket();
+    public SocketInfo borrowSocket(int port, RpcPriority priority) throws IOException {
+        return getPool(port).borrow(port, priority);
+    }
+
+    /**
+     * Returns a healthy socket to the pool.
+     */
+    public void returnSocket(int port, SocketInfo socketInfo) {
+        getPool(port).release(socketInfo, false);
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Closes a failed socket and frees its slot in the pool.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing failed socket on port {}", port);
+        getPool(port).release(socketInfo, true);
+    }
+
+    /**
+     * Removes all sockets for the given port, sockets in use are closed when they are returned.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool != null) {
+            logger.trace("Closing sockets on port {}", port);
+            pool.clear();
         }
     }
 
@@ -75,12 +77,21 @@ public class SocketHandler {
      * Removes all cached sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
+        for (Integer port : poolsPerPort.keySet()) {
+            removeSocket(port);
+        }
+    }
+
+    private SocketPool getPool(int port) {
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool == null) {
+            pool = new SocketPool();
+            SocketPool existing = poolsPerPort.putIfAbsent(port, pool);
+            if (existing != null) {
+                pool = existing;
             }
         }
+        return pool;
     }
 
     /**
@@ -93,4 +104,114 @@ public class SocketHandler {
             // ignore
         }
     }
+
+    /**
+     * The sockets of one port.
+     */
+    private class SocketPool {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private final Deque<SocketInfo> idleSockets = new ArrayDeque<SocketInfo>();
+        private int inUse;
+        private int waitingInteractive;
+        private int generation;
+
+        /**
+         * Waits for a free slot in the pool and returns an idle or new socket.
+         */
+        public SocketInfo borrow(int port, RpcPriority priority) throws IOException {
+            boolean interactive = priority == RpcPriority.INTERACTIVE;
+            long waitNanos = TimeUnit.SECONDS.toNanos(config.getTimeout());
+            SocketInfo socketInfo;
+            int currentGeneration;
+            lock.lock();
+            try {
+                if (interactive) {
+                    waitingInteractive++;
+                }
+                try {
+                    while (inUse >= config.getSocketPoolSize() || (!interactive && waitingInteractive > 0)) {
+                        if (waitNanos <= 0) {
+                            throw new IOException("Timeout waiting for a free socket on port " + port);
+                        }
+                        waitNanos = available.awaitNanos(waitNanos);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for a free socket on port " + port);
+                } finally {
+                    if (interactive) {
+                        waitingInteractive--;
+                    }
+                }
+                inUse++;
+                socketInfo = idleSockets.pollFirst();
+                currentGeneration = generation;
+            } finally {
+                lock.unlock();
+            }
+
+            if (socketInfo != null) {
+                boolean isMaxAliveReached = System.currentTimeMillis()
+                        - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+                if (isMaxAliveReached) {
+                    logger.debug("Max alive time reached for socket on port {}", port);
+                    closeSilent(socketInfo.getSocket());
+                    socketInfo = null;
+                } else {
+                    logger.trace("Returning socket for port {}", port);
+                }
+            }
+
+            if (socketInfo == null) {
+                try {
+                    logger.trace("Creating new socket for port {}", port);
+                    Socket socket = new Socket();
+                    socket.setSoTimeout(config.getTimeout() * 1000);
+                    socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
+                    socketInfo = new SocketInfo(socket, currentGeneration);
+                } catch (IOException ex) {
+                    release(null, true);
+                    throw ex;
+                }
+            }
+            return socketInfo;
+        }
+
+        /**
+         * Gives the slot back to the pool, the socket is closed if it failed or the pool has been cleared meanwhile.
+         */
+        public void release(SocketInfo socketInfo, boolean failed) {
+            lock.lock();
+            try {
+                inUse--;
+                if (socketInfo != null) {
+                    if (failed || socketInfo.getGeneration() != generation) {
+                        closeSilent(socketInfo.getSocket());
+                    } else {
+                        idleSockets.addFirst(socketInfo);
+                    }
+                }
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Closes all idle sockets and marks the sockets in use as outdated.
+         */
+        public void clear() {
+            lock.lock();
+            try {
+                generation++;
+                SocketInfo socketInfo;
+                while ((socketInfo = idleSockets.pollFirst()) != null) {
+                    closeSilent(socketInfo.getSocket());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -8,15 +8,13 @@
  */
 package org.openhab.binding.homematic.internal.communicator.client;
 
-import java.io.IOException;
-
 /**
  * Exception if the RPC call returns a unknown -3 Unknown paramset.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 
-public class UnknownParameterSetException extends IOException {
+public class UnknownParameterSetException extends RpcFaultException {
     private static final long serialVersionUID = -246970996431236583L;
 
     public UnknownParameterSetException(String message) {
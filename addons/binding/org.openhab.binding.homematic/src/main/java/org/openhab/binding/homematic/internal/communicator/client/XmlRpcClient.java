@@ -75,7 +75,8 @@ public class XmlRpcClient extends RpcClient {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest request) throws IOException {
+    protected synchronized Object[] sendMessage(int port, RpcRequest request, RpcPriority priority)
+            throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client XmlRpcRequest (port {}):\n{}", port, request);
         }
@@ -96,15 +97,15 @@ public class XmlRpcClient extends RpcClient {
                     .timeout(config.getTimeout(), TimeUnit.SECONDS)
                     .header(HttpHeader.CONTENT_TYPE, "text/xml;charset=" + config.getEncoding()).send();
 
-            String result = new String(response.getContent(), config.getEncoding());
+            byte[] result = response.getContent();
             if (logger.isTraceEnabled()) {
-                logger.trace("Client XmlRpcResponse (port {}):\n{}", port, result);
+                logger.trace("Client XmlRpcResponse (port {}):\n{}", port, new String(result, config.getEncoding()));
             }
 
-            Object[] data = new XmlRpcResponse(new ByteArrayInputStream(result.getBytes(config.getEncoding())),
-                    config.getEncoding()).getResponseData();
+            Object[] data = new XmlRpcResponse(new ByteArrayInputStream(result), config.getEncoding())
+                    .getResponseData();
             return new RpcResponseParser(request).parse(data);
-        } catch (UnknownRpcFailureException | UnknownParameterSetException ex) {
+        } catch (RpcFaultException ex) {
             throw ex;
         } catch (Exception ex) {
             if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming decoder for BIN-RPC messages. Reads the values directly from a {@link ByteBuffer} without intermediate
+ * copies, the buffers used for reading from a stream are pooled per thread. Events can be consumed with a
+ * {@link RpcCallVisitor} without materializing the message data.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcDecoder {
+    public static final int HEADER_SIZE = 8;
+    public static final int MAX_MESSAGE_SIZE = 16 * 1024 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    };
+
+    private static final byte[] KEY_METHOD_NAME = "methodName".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEY_PARAMS = "params".getBytes(StandardCharsets.US_ASCII);
+
+    private Charset charset;
+
+    public BinRpcDecoder(String encoding) {
+        this.charset = Charset.forName(encoding);
+    }
+
+    /**
+     * Validates the BIN-RPC header at the current position of the buffer and returns the length of the message body.
+     * The position of the buffer is not changed.
+     */
+    public static int getBodyLength(ByteBuffer buffer) throws IOException {
+        int position = buffer.position();
+        if (buffer.get(position) != 'B' || buffer.get(position + 1) != 'i' || buffer.get(position + 2) != 'n') {
+            throw new UnsupportedEncodingException("No BinX signature");
+        }
+        int length = buffer.getInt(position + 4);
+        if (length < 0 || length > MAX_MESSAGE_SIZE) {
+            throw new IOException("Invalid BIN-RPC message length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Reads a complete message from the stream into a pooled buffer. The returned buffer is positioned after the
+     * header, it is only valid until the next call of this method in the same thread.
+     */
+    public ByteBuffer readMessage(InputStream is) throws IOException {
+        ByteBuffer buffer = buffers.get();
+        readFully(is, buffer.array(), 0, HEADER_SIZE);
+        buffer.clear();
+        int length = getBodyLength(buffer);
+        if (buffer.capacity() < HEADER_SIZE + length) {
+            ByteBuffer newBuffer = ByteBuffer.allocate(Integer.highestOneBit(HEADER_SIZE + length) << 1);
+            newBuffer.put(buffer.array(), 0, HEADER_SIZE);
+            buffer = newBuffer;
+            buffers.set(buffer);
+        }
+        readFully(is, buffer.array(), HEADER_SIZE, length);
+        buffer.limit(HEADER_SIZE + length);
+        buffer.position(HEADER_SIZE);
+        return buffer;
+    }
+
+    private void readFully(InputStream is, byte[] data, int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int count = is.read(data, offset + read, length - read);
+            if (count < 0) {
+                throw new EOFException("Only " + read + " of " + length + " bytes received");
+            }
+            read += count;
+        }
+    }
+
+    /**
+     * Reads the method name of a method call and skips the argument count.
+     */
+    public String readMethodName(ByteBuffer buffer) {
+        String methodName = readString(buffer);
+        buffer.getInt();
+        return methodName;
+    }
+
+    /**
+     * Reads all remaining values of the message.
+     */
+    public Object[] readValues(ByteBuffer buffer) throws IOException {
+        List<Object> values = new ArrayList<Object>();
+        while (buffer.hasRemaining()) {
+            values.add(readValue(buffer));
+        }
+        return values.toArray();
+    }
+
+    /**
+     * Reads the parameters of a event and calls the visitor.
+     */
+    public void readEvent(ByteBuffer buffer, RpcCallVisitor visitor) throws IOException {
+        String interfaceId = toString(readValue(buffer));
+        String address = toString(readValue(buffer));
+        String key = toString(readValue(buffer));
+        visitor.event(interfaceId, address, key, readValue(buffer));
+    }
+
+    /**
+     * Reads the calls of a system.multicall and calls the visitor for each call. Events are passed directly to the
+     * visitor, the parameters of all other calls are decoded.
+     */
+    public void readMulticall(ByteBuffer buffer, RpcCallVisitor visitor) throws IOException {
+        expectType(buffer, 0x100);
+        int calls = buffer.getInt();
+        while (calls-- > 0) {
+            expectType(buffer, 0x101);
+            int members = buffer.getInt();
+            String methodName = null;
+            Object[] params = null;
+            boolean handled = false;
+            while (members-- > 0) {
+                if (readKey(buffer, KEY_METHOD_NAME)) {
+                    methodName = toString(readValue(buffer));
+                } else if (readKey(buffer, KEY_PARAMS)) {
+                    if (RPC_METHODNAME_EVENT.equals(methodName) && isArrayOfSize(buffer, 4)) {
+                        buffer.position(buffer.position() + 8);
+                        readEvent(buffer, visitor);
+                        handled = true;
+                    } else {
+                        Object value = readValue(buffer);
+                        params = value instanceof Object[] ? (Object[]) value : new Object[] { value };
+                    }
+                } else {
+                    skipString(buffer);
+                    readValue(buffer);
+                }
+            }
+            if (!handled && methodName != null) {
+                visitor.methodCall(methodName, params == null ? new Object[0] : params);
+            }
+        }
+    }
+
+    /**
+     * Reads a single value.
+     */
+    public Object readValue(ByteBuffer buffer) throws IOException {
+        int type = buffer.getInt();
+        switch (type) {
+            case 1:
+                return Integer.valueOf(buffer.getInt());
+            case 2:
+                return buffer.get() != 0 ? Boolean.TRUE : Boolean.FALSE;
+            case 3:
+                return readString(buffer);
+            case 4:
+                int mantissa = buffer.getInt();
+                int exponent = buffer.getInt();
+                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
+                return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+            case 5:
+                return new Date(buffer.getInt() * 1000L);
+            case 0x100:
+                int numElements = buffer.getInt();
+                Object[] array = new Object[numElements];
+                for (int i = 0; i < numElements; i++) {
+                    array[i] = readValue(buffer);
+                }
+                return array;
+            case 0x101:
+                numElements = buffer.getInt();
+                Map<String, Object> struct = new TreeMap<String, Object>();
+                while (numElements-- > 0) {
+                    String name = readString(buffer);
+                    struct.put(name, readValue(buffer));
+                }
+                return struct;
+            default:
+                throw new IOException("Unknown data type " + type + " at position " + (buffer.position() - 4));
+        }
+    }
+
+    /**
+     * Dumps the message without changing the position of the buffer.
+     */
+    public String dump(ByteBuffer buffer, boolean methodHeader) {
+        try {
+            ByteBuffer copy = buffer.duplicate();
+            String methodName = methodHeader ? readMethodName(copy) : null;
+            return RpcUtils.dumpRpcMessage(methodName, readValues(copy));
+        } catch (Exception ex) {
+            return ex.getMessage();
+        }
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        int position = buffer.position();
+        buffer.position(position + length);
+        return new String(buffer.array(), buffer.arrayOffset() + position, length, charset);
+    }
+
+    private void skipString(ByteBuffer buffer) {
+        buffer.position(buffer.position() + 4 + buffer.getInt());
+    }
+
+    /**
+     * Returns true and skips the key if the next string in the buffer equals the given key.
+     */
+    private boolean readKey(ByteBuffer buffer, byte[] key) {
+        int position = buffer.position();
+        if (buffer.getInt(position) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(position + 4 + i) != key[i]) {
+                return false;
+            }
+        }
+        buffer.position(position + 4 + key.length);
+        return true;
+    }
+
+    private boolean isArrayOfSize(ByteBuffer buffer, int size) {
+        int position = buffer.position();
+        return buffer.getInt(position) == 0x100 && buffer.getInt(position + 4) == size;
+    }
+
+    private void expectType(ByteBuffer buffer, int type) throws IOException {
+        int actualType = buffer.getInt();
+        if (actualType != type) {
+            throw new IOException("Expected data type " + type + " but was " + actualType);
+        }
+    }
+
+    private String toString(Object object) {
+        return object == null ? null : object.toString();
+    }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Encoder for BIN-RPC messages which writes directly into a {@link ByteBuffer}. The buffers are pooled per thread, a
+ * returned buffer is only valid until the next encoding in the same thread. Instances are not thread-safe.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcEncoder {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    };
+
+    private Charset charset;
+    private ByteBuffer buffer;
+
+    public BinRpcEncoder(String encoding) {
+        this.charset = Charset.forName(encoding);
+    }
+
+    /**
+     * Encodes a method call with the given arguments. The returned buffer is ready to be read.
+     *
+     * @throws IllegalArgumentException if an argument is null or of a type not supported by BIN-RPC
+     */
+    public ByteBuffer encodeRequest(String methodName, Collection<?> args) {
+        startMessage((byte) 0);
+        byte[] name = methodName.getBytes(charset);
+        ensureCapacity(8 + name.length);
+        buffer.putInt(name.length);
+        buffer.put(name);
+        buffer.putInt(args.size());
+        for (Object arg : args) {
+            addObject(arg);
+        }
+        return finishMessage();
+    }
+
+    /**
+     * Encodes a response with the given value. The returned buffer is ready to be read.
+     *
+     * @throws IllegalArgumentException if the value is null or of a type not supported by BIN-RPC
+     */
+    public ByteBuffer encodeResponse(Object value) {
+        startMessage((byte) 1);
+        addObject(value);
+        return finishMessage();
+    }
+
+    private void startMessage(byte type) {
+        buffer = buffers.get();
+        buffer.clear();
+        buffer.put((byte) 'B').put((byte) 'i').put((byte) 'n').put(type);
+        buffer.putInt(0); // placeholder content length
+    }
+
+    private ByteBuffer finishMessage() {
+        ByteBuffer result = buffer;
+        buffer = null;
+        result.putInt(4, result.position() - BinRpcDecoder.HEADER_SIZE);
+        result.flip();
+        return result;
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() < length) {
+            int capacity = buffer.capacity();
+            while (capacity - buffer.position() < length) {
+                capacity <<= 1;
+            }
+            ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+            buffers.set(buffer);
+        }
+    }
+
+    private void addInt(int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+    }
+
+    private void addString(String string) {
+        byte[] data = string.getBytes(charset);
+        ensureCapacity(4 + data.length);
+        buffer.putInt(data.length);
+        buffer.put(data);
+    }
+
+    private void addDouble(double value) {
+        double tmp = Math.abs(value);
+        int exp = 0;
+        if (tmp != 0 && tmp < 0.5) {
+            while (tmp < 0.5) {
+                tmp *= 2;
+                exp--;
+            }
+        } else {
+            while (tmp >= 1) {
+                tmp /= 2;
+                exp++;
+            }
+        }
+        if (value < 0) {
+            tmp *= -1;
+        }
+        ensureCapacity(12);
+        buffer.putInt(4);
+        buffer.putInt((int) Math.round(tmp * 0x40000000));
+        buffer.putInt(exp);
+    }
+
+    private void addObject(Object object) {
+        if (object instanceof String) {
+            addInt(3);
+            addString((String) object);
+        } else if (object instanceof Boolean) {
+            ensureCapacity(5);
+            buffer.putInt(2);
+            buffer.put(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
+        } else if (object instanceof Integer) {
+            ensureCapacity(8);
+            buffer.putInt(1);
+            buffer.putInt(((Integer) object).intValue());
+        } else if (object instanceof Double) {
+            addDouble(((Double) object).doubleValue());
+        } else if (object instanceof Float) {
+            addDouble(new BigDecimal((Float) object).setScale(6, RoundingMode.HALF_DOWN).doubleValue());
+        } else if (object instanceof BigDecimal) {
+            addDouble(((BigDecimal) object).setScale(6, RoundingMode.HALF_DOWN).doubleValue());
+        } else if (object instanceof BigInteger) {
+            addDouble(((BigInteger) object).doubleValue());
+        } else if (object instanceof Date) {
+            ensureCapacity(8);
+            buffer.putInt(5);
+            buffer.putInt((int) (((Date) object).getTime() / 1000));
+        } else if (object instanceof Collection<?>) {
+            Collection<?> list = (Collection<?>) object;
+            ensureCapacity(8);
+            buffer.putInt(0x100);
+            buffer.putInt(list.size());
+            for (Object element : list) {
+                addObject(element);
+            }
+        } else if (object instanceof Object[]) {
+            Object[] array = (Object[]) object;
+            ensureCapacity(8);
+            buffer.putInt(0x100);
+            buffer.putInt(array.length);
+            for (Object element : array) {
+                addObject(element);
+            }
+        } else if (object instanceof Map<?, ?>) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            ensureCapacity(8);
+            buffer.putInt(0x101);
+            buffer.putInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                addString((String) entry.getKey());
+                addObject(entry.getValue());
+            }
+        } else {
+            // the element count is already written, skipping the value would corrupt the message
+            throw new IllegalArgumentException("Unsupported BIN-RPC value: "
+                    + (object == null ? "null" : object.getClass().getName()));
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A BIN-RPC request which is encoded with the {@link BinRpcEncoder} when it is sent.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcRequest implements RpcRequest {
+    private String methodName;
+    private String encoding;
+    private List<Object> args = new ArrayList<Object>();
+
+    public BinRpcRequest(String methodName, String encoding) {
+        this.methodName = methodName;
+        this.encoding = encoding;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addArg(Object arg) {
+        args.add(arg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] createMessage() {
+        ByteBuffer buffer = new BinRpcEncoder(encoding).encodeRequest(methodName, args);
+        return Arrays.copyOf(buffer.array(), buffer.limit());
+    }
+
+    /**
+     * Encodes the request into a pooled buffer and writes it to the stream without copying.
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        ByteBuffer buffer = new BinRpcEncoder(encoding).encodeRequest(methodName, args);
+        os.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMethodName() {
+        return methodName;
+    }
+
+    @Override
+    public String toString() {
+        return RpcUtils.dumpRpcMessage(methodName, args.toArray());
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.IOException;
+
+/**
+ * Callback for the streaming decoding of method calls by the {@link BinRpcDecoder} and {@link XmlRpcDecoder}.
+ *
+ * @author agent - Initial contribution
+ */
+public interface RpcCallVisitor {
+
+    /**
+     * Called for every event, either received directly or as part of a system.multicall.
+     */
+    public void event(String interfaceId, String address, String key, Object value) throws IOException;
+
+    /**
+     * Called for all other method calls which are part of a system.multicall.
+     */
+    public void methodCall(String methodName, Object[] params) throws IOException;
+
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming pull decoder for XML-RPC messages. The values are read directly from the {@link InputStream} with a StAX
+ * reader created by a shared, preconfigured factory. Events can be consumed with a {@link RpcCallVisitor} without
+ * materializing the message data.
+ *
+ * @author agent - Initial contribution
+ */
+public class XmlRpcDecoder {
+    private static final XMLInputFactory inputFactory = createInputFactory();
+    private static final ThreadLocal<SimpleDateFormat> dateFormats = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyyMMdd'T'HH:mm:ss");
+        }
+    };
+
+    private String encoding;
+
+    public XmlRpcDecoder(String encoding) {
+        this.encoding = encoding;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Creates a reader for the message in the stream, the reader must be closed after decoding.
+     */
+    public XMLStreamReader createReader(InputStream is) throws IOException {
+        try {
+            return inputFactory.createXMLStreamReader(is, encoding);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Closes the reader, the underlying stream is not closed.
+     */
+    public void close(XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException ex) {
+            // ignore
+        }
+    }
+
+    /**
+     * Reads the root element and returns the method name of a method call or null, if the message is a method
+     * response.
+     */
+    public String readMethodName(XMLStreamReader reader) throws IOException {
+        try {
+            reader.nextTag();
+            if ("methodCall".equals(reader.getLocalName())) {
+                reader.nextTag();
+                if ("methodName".equals(reader.getLocalName())) {
+                    return reader.getElementText().trim();
+                }
+                throw new IOException("Missing XML-RPC methodName");
+            }
+            return null;
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reads all remaining values of the message, these are either the parameters or the fault.
+     */
+    public Object[] readValues(XMLStreamReader reader) throws IOException {
+        try {
+            List<Object> values = new ArrayList<Object>();
+            while (nextValue(reader)) {
+                values.add(readValue(reader));
+            }
+            return values.toArray();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reads the parameters of a event and calls the visitor.
+     */
+    public void readEvent(XMLStreamReader reader, RpcCallVisitor visitor) throws IOException {
+        try {
+            Object[] values = new Object[4];
+            for (int i = 0; i < values.length; i++) {
+                if (!nextValue(reader)) {
+                    throw new IOException("Event with " + i + " parameters received");
+                }
+                values[i] = readValue(reader);
+            }
+            visitor.event(toString(values[0]), toString(values[1]), toString(values[2]), values[3]);
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reads the calls of a system.multicall and calls the visitor for each call. Events are passed directly to the
+     * visitor, the parameters of all other calls are decoded.
+     */
+    public void readMulticall(XMLStreamReader reader, RpcCallVisitor visitor) throws IOException {
+        try {
+            if (!nextValue(reader)) {
+                return;
+            }
+            expectTag(reader, "array");
+            expectTag(reader, "data");
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                expectTag(reader, "struct");
+                String methodName = null;
+                Object[] params = null;
+                boolean handled = false;
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String name = readMemberName(reader);
+                    if ("methodName".equals(name)) {
+                        methodName = toString(readValue(reader));
+                    } else if ("params".equals(name) && RPC_METHODNAME_EVENT.equals(methodName)) {
+                        expectTag(reader, "array");
+                        expectTag(reader, "data");
+                        readEvent(reader, visitor);
+                        skipToEnd(reader, "array");
+                        reader.nextTag();
+                        handled = true;
+                    } else if ("params".equals(name)) {
+                        Object value = readValue(reader);
+                        params = value instanceof Object[] ? (Object[]) value : new Object[] { value };
+                    } else {
+                        readValue(reader);
+                    }
+                    reader.nextTag();
+                }
+                reader.nextTag();
+                if (!handled && methodName != null) {
+                    visitor.methodCall(methodName, params == null ? new Object[0] : params);
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Moves the reader to the next value start tag, returns false if there is no more value.
+     */
+    private boolean nextValue(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "value".equals(reader.getLocalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a value, the reader must be positioned at the value start tag and is positioned at the value end tag
+     * afterwards.
+     */
+    private Object readValue(XMLStreamReader reader) throws XMLStreamException, IOException {
+        String text = "";
+        Object value = null;
+        boolean typed = false;
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    value = readTypedValue(reader);
+                    typed = true;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (!typed) {
+                        text = reader.getText();
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return typed ? value : text;
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new IOException("Unexpected end of XML-RPC message");
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the value of a type tag.
+     */
+    private Object readTypedValue(XMLStreamReader reader) throws XMLStreamException, IOException {
+        String tag = reader.getLocalName();
+        switch (tag) {
+            case "i4":
+            case "int":
+                return Integer.valueOf(reader.getElementText().trim());
+            case "boolean":
+                return "1".equals(reader.getElementText().trim()) ? Boolean.TRUE : Boolean.FALSE;
+            case "double":
+                return Double.valueOf(reader.getElementText().trim());
+            case "string":
+                return reader.getElementText();
+            case "base64":
+                return Base64.getMimeDecoder().decode(reader.getElementText());
+            case "dateTime.iso8601":
+                try {
+                    return dateFormats.get().parse(reader.getElementText().trim());
+                } catch (ParseException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+            case "array":
+                List<Object> array = new ArrayList<Object>();
+                expectTag(reader, "data");
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    array.add(readValue(reader));
+                }
+                reader.nextTag();
+                return array.toArray();
+            case "struct":
+                Map<Object, Object> struct = new HashMap<Object, Object>();
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String name = readMemberName(reader);
+                    struct.put(name, readValue(reader));
+                    reader.nextTag();
+                }
+                return struct;
+            default:
+                throw new IOException("Unknown XML-RPC tag: " + tag);
+        }
+    }
+
+    /**
+     * Reads the name of a struct member, the reader must be positioned at the member start tag and is positioned at
+     * the value start tag afterwards.
+     */
+    private String readMemberName(XMLStreamReader reader) throws XMLStreamException, IOException {
+        expectTag(reader, "name");
+        String name = reader.getElementText();
+        expectTag(reader, "value");
+        return name;
+    }
+
+    /**
+     * Moves the reader to the next tag and validates that it is the start tag with the given name.
+     */
+    private void expectTag(XMLStreamReader reader, String tag) throws XMLStreamException, IOException {
+        if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !tag.equals(reader.getLocalName())) {
+            throw new IOException("Expected XML-RPC tag " + tag + " but was " + reader.getLocalName());
+        }
+    }
+
+    /**
+     * Skips all elements until the end tag with the given name.
+     */
+    private void skipToEnd(XMLStreamReader reader, String tag) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.END_ELEMENT && tag.equals(reader.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    private String toString(Object object) {
+        return object == null ? null : object.toString();
+    }
+
+}
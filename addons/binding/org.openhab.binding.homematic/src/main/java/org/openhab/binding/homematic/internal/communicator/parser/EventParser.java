@@ -30,9 +30,16 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
      */
     @Override
     public HmDatapointInfo parse(Object[] message) throws IOException {
+        return parse(toString(message[1]), toString(message[2]), message[3]);
+    }
+
+    /**
+     * Parses a event without the need to materialize the message data.
+     */
+    public HmDatapointInfo parse(String addressWithChannel, String name, Object value) {
         String address;
         Integer channel = 0;
-        String addressWithChannel = toString(message[1]);
+        addressWithChannel = toString(addressWithChannel);
         if ("".equals(addressWithChannel)) {
             address = HmDevice.ADDRESS_GATEWAY_EXTRAS;
             channel = HmChannel.CHANNEL_NUMBER_VARIABLE;
@@ -44,10 +51,9 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
             }
         }
 
-        String name = toString(message[2]);
-        value = message[3];
+        this.value = value;
 
-        return new HmDatapointInfo(address, HmParamsetType.VALUES, channel, name);
+        return new HmDatapointInfo(address, HmParamsetType.VALUES, channel, toString(name));
     }
 
     /**
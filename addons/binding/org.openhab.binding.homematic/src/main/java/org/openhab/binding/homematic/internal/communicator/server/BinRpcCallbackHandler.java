@@ -13,11 +13,14 @@ import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcDecoder;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcEncoder;
+import org.openhab.binding.homematic.internal.communicator.message.RpcCallVisitor;
 import org.openhab.binding.homematic.internal.communicator.parser.DeleteDevicesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.EventParser;
 import org.openhab.binding.homematic.internal.communicator.parser.NewDevicesParser;
@@ -30,7 +33,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Gerhard Riegler - Initial contribution
  */
-public class BinRpcCallbackHandler implements Runnable {
+public class BinRpcCallbackHandler implements Runnable, RpcCallVisitor {
     private static final Logger logger = LoggerFactory.getLogger(BinRpcCallbackHandler.class);
 
     private static final byte BIN_EMPTY_STRING[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
@@ -41,11 +44,21 @@ public class BinRpcCallbackHandler implements Runnable {
     private Socket socket;
     private RpcEventListener listener;
     private String encoding;
+    private BinRpcDecoder decoder;
+    private EventParser eventParser = new EventParser();
 
     public BinRpcCallbackHandler(Socket socket, RpcEventListener listener, String encoding) {
         this.socket = socket;
         this.listener = listener;
         this.encoding = encoding;
+        this.decoder = new BinRpcDecoder(encoding);
+    }
+
+    /**
+     * Creates a handler for messages which have already been read, e.g. by the {@link BinRpcNioServer}.
+     */
+    public BinRpcCallbackHandler(RpcEventListener listener, String encoding) {
+        this(null, listener, encoding);
     }
 
     /**
@@ -54,11 +67,11 @@ public class BinRpcCallbackHandler implements Runnable {
     @Override
     public void run() {
         try {
-            BinRpcMessage message = new BinRpcMessage(socket.getInputStream(), true, encoding);
+            ByteBuffer message = decoder.readMessage(socket.getInputStream());
             if (logger.isTraceEnabled()) {
-                logger.trace("Event BinRpcMessage: {}", message.toString());
+                logger.trace("Event BinRpcMessage: {}", decoder.dump(message, true));
             }
-            byte[] returnValue = handleMethodCall(message.getMethodName(), message.getResponseData());
+            byte[] returnValue = handleMessage(message);
             if (returnValue != null) {
                 socket.getOutputStream().write(returnValue);
             }
@@ -75,6 +88,43 @@ public class BinRpcCallbackHandler implements Runnable {
         }
     }
 
+    /**
+     * Decodes the method call and returns a valid result, events are passed to the listener without materializing
+     * the message data.
+     */
+    public byte[] handleMessage(ByteBuffer message) throws IOException {
+        String methodName = decoder.readMethodName(message);
+        if (RPC_METHODNAME_EVENT.equals(methodName)) {
+            decoder.readEvent(message, this);
+            return BIN_EMPTY_STRING;
+        } else if (RPC_METHODNAME_SYSTEM_MULTICALL.equals(methodName)) {
+            decoder.readMulticall(message, this);
+            return BIN_EMPTY_EVENT_LIST;
+        }
+        return handleMethodCall(methodName, decoder.readValues(message));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void event(String interfaceId, String address, String key, Object value) {
+        try {
+            HmDatapointInfo dpInfo = eventParser.parse(address, key, value);
+            listener.eventReceived(dpInfo, value);
+        } catch (Exception ex) {
+            logger.debug("Error handling event {}:{} = {}: {}", address, key, value, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void methodCall(String methodName, Object[] params) throws IOException {
+        handleMethodCall(methodName, params);
+    }
+
     /**
      * Returns a valid result of the method called by the Homematic gateway.
      */
@@ -89,14 +139,6 @@ public class BinRpcCallbackHandler implements Runnable {
             return handleNewDevice(responseData);
         } else if (RPC_METHODNAME_SYSTEM_LISTMETHODS.equals(methodName)) {
             return handleListMethods();
-        } else if (RPC_METHODNAME_SYSTEM_MULTICALL.equals(methodName)) {
-            for (Object o : (Object[]) responseData[0]) {
-                Map<?, ?> call = (Map<?, ?>) o;
-                String method = call.get("methodName").toString();
-                Object[] data = (Object[]) call.get("params");
-                handleMethodCall(method, data);
-            }
-            return BIN_EMPTY_EVENT_LIST;
         } else {
             logger.warn("Unknown method called by Homematic gateway: " + methodName);
             return BIN_EMPTY_EVENT_LIST;
@@ -107,14 +149,13 @@ public class BinRpcCallbackHandler implements Runnable {
      * Creates a BINRPC message with the supported method names.
      */
     private byte[] handleListMethods() {
-        BinRpcMessage msg = new BinRpcMessage(null, BinRpcMessage.TYPE.RESPONSE, encoding);
         List<String> events = new ArrayList<String>();
         events.add(RPC_METHODNAME_SYSTEM_MULTICALL);
         events.add(RPC_METHODNAME_EVENT);
         events.add(RPC_METHODNAME_DELETE_DEVICES);
         events.add(RPC_METHODNAME_NEW_DEVICES);
-        msg.addArg(events);
-        return msg.createMessage();
+        ByteBuffer buffer = new BinRpcEncoder(encoding).encodeResponse(events);
+        return Arrays.copyOf(buffer.array(), buffer.limit());
     }
 
     /**
@@ -123,7 +164,6 @@ public class BinRpcCallbackHandler implements Runnable {
     @SuppressWarnings("finally")
     private byte[] handleEvent(Object[] message) throws IOException {
         try {
-            EventParser eventParser = new EventParser();
             HmDatapointInfo dpInfo = eventParser.parse(message);
             listener.eventReceived(dpInfo, eventParser.getValue());
         } finally {
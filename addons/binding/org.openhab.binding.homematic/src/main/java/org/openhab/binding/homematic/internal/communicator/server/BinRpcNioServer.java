@@ -0,0 +1,348 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking server implementation for receiving messages via BIN-RPC from a Homematic gateway. All connections are
+ * multiplexed on one I/O thread, the messages are framed incrementally and only complete messages are dispatched to
+ * the RPC thread pool.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcNioServer implements RpcServer, Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(BinRpcNioServer.class);
+    private static final String RPC_POOL_NAME = "homematicRpc";
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private RpcEventListener listener;
+    private HomematicConfig config;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread ioThread;
+    private volatile boolean running;
+    private Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<Connection>();
+
+    private AtomicInteger queuedFrames = new AtomicInteger();
+    private AtomicLong processedFrames = new AtomicLong();
+    private AtomicLong decodeNanos = new AtomicLong();
+    private AtomicLong maxDecodeNanos = new AtomicLong();
+
+    public BinRpcNioServer(RpcEventListener listener, HomematicConfig config) {
+        this.listener = listener;
+        this.config = config;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() throws IOException {
+        logger.debug("Initializing non-blocking BIN-RPC server at port {}", config.getBinCallbackPort());
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(config.getBinCallbackPort()));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        ioThread = new Thread(this);
+        ioThread.setName("HomematicRpcNioServer");
+        ioThread.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void shutdown() {
+        if (running) {
+            logger.debug("Stopping non-blocking BIN-RPC server, {}", getStatistics());
+            running = false;
+            // the I/O thread closes the connections and the channels, the port is free when it has finished
+            selector.wakeup();
+            try {
+                ioThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Selects the ready channels and handles the I/O operations.
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerPendingWrites();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            } else if (key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException ex) {
+                            logger.trace("Closing BIN-RPC connection: {}", ex.getMessage());
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (ClosedSelectorException ex) {
+                break;
+            } catch (IOException ex) {
+                logger.debug("Error in non-blocking BIN-RPC server: {}", ex.getMessage(), ex);
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * Closes all connections, the selector and the server channel, only called from the I/O thread.
+     */
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /**
+     * Switches connections with a response from the workers to write mode, only called from the I/O thread.
+     */
+    private void registerPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            if (connection.key.isValid()) {
+                connection.key.interestOps(SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Handles a complete message in a worker thread and queues the response.
+     */
+    private void dispatch(final Connection connection, final ByteBuffer message) {
+        queuedFrames.incrementAndGet();
+        ThreadPoolManager.getPool(RPC_POOL_NAME).execute(new Runnable() {
+
+            @Override
+            public void run() {
+                queuedFrames.decrementAndGet();
+                long start = System.nanoTime();
+                byte[] returnValue = null;
+                try {
+                    BinRpcCallbackHandler handler = new BinRpcCallbackHandler(listener, config.getEncoding());
+                    returnValue = handler.handleMessage(message);
+                } catch (Exception ex) {
+                    logger.error(ex.getMessage(), ex);
+                } finally {
+                    recordDecodeTime(System.nanoTime() - start);
+                }
+                if (returnValue == null) {
+                    connection.close();
+                } else {
+                    connection.response = ByteBuffer.wrap(returnValue);
+                    pendingWrites.add(connection);
+                    selector.wakeup();
+                }
+            }
+        });
+    }
+
+    private void recordDecodeTime(long nanos) {
+        processedFrames.incrementAndGet();
+        decodeNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxDecodeNanos.get())) {
+            if (maxDecodeNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of complete messages waiting for a worker thread.
+     */
+    public int getQueuedFrames() {
+        return queuedFrames.get();
+    }
+
+    /**
+     * Returns the number of handled messages.
+     */
+    public long getProcessedFrames() {
+        return processedFrames.get();
+    }
+
+    /**
+     * Returns the average time in microseconds to decode and handle a message.
+     */
+    public long getAverageDecodeTime() {
+        long count = processedFrames.get();
+        return count == 0 ? 0 : decodeNanos.get() / count / 1000;
+    }
+
+    /**
+     * Returns the maximum time in microseconds to decode and handle a message.
+     */
+    public long getMaxDecodeTime() {
+        return maxDecodeNanos.get() / 1000;
+    }
+
+    /**
+     * Returns a summary of the server metrics.
+     */
+    public String getStatistics() {
+        return String.format("queued: %d, processed: %d, decode avg: %d us, max: %d us", getQueuedFrames(),
+                getProcessedFrames(), getAverageDecodeTime(), getMaxDecodeTime());
+    }
+
+    /**
+     * A connection from the Homematic gateway, frames the received messages.
+     */
+    private class Connection {
+        private SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private volatile ByteBuffer response;
+
+        public Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads the available data and dispatches the message if it is complete. No more data is read from the
+         * connection until the response has been written.
+         */
+        public void read() throws IOException {
+            if (channel.read(buffer) < 0) {
+                close();
+                return;
+            }
+            frame();
+        }
+
+        /**
+         * Dispatches the first message in the buffer if it is complete. Data after the message is kept for the next
+         * message, which is framed after the response has been written.
+         */
+        private void frame() throws IOException {
+            if (buffer.position() < BinRpcDecoder.HEADER_SIZE) {
+                return;
+            }
+            buffer.flip();
+            int messageSize = BinRpcDecoder.HEADER_SIZE + BinRpcDecoder.getBodyLength(buffer);
+            if (buffer.limit() < messageSize) {
+                buffer.compact();
+                if (buffer.capacity() < messageSize) {
+                    ByteBuffer newBuffer = ByteBuffer.allocate(messageSize);
+                    buffer.flip();
+                    newBuffer.put(buffer);
+                    buffer = newBuffer;
+                }
+                return;
+            }
+
+            ByteBuffer message = buffer;
+            buffer = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE, message.limit() - messageSize));
+            if (message.limit() > messageSize) {
+                // pipelined data of the next message
+                message.position(messageSize);
+                buffer.put(message);
+                message.limit(messageSize);
+            }
+            message.position(BinRpcDecoder.HEADER_SIZE);
+            key.interestOps(0);
+            dispatch(this, message);
+        }
+
+        /**
+         * Writes the response and switches back to read mode if the response has been written completely.
+         */
+        public void write() throws IOException {
+            channel.write(response);
+            if (!response.hasRemaining()) {
+                response = null;
+                key.interestOps(SelectionKey.OP_READ);
+                frame();
+            }
+        }
+
+        /**
+         * Closes the connection.
+         */
+        public void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ package org.openhab.binding.homematic.internal.communicator.server;
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,21 +20,21 @@ import java.util.Map;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.message.RpcCallVisitor;
+import org.openhab.binding.homematic.internal.communicator.message.XmlRpcDecoder;
 import org.openhab.binding.homematic.internal.communicator.message.XmlRpcRequest;
-import org.openhab.binding.homematic.internal.communicator.message.XmlRpcResponse;
 import org.openhab.binding.homematic.internal.communicator.parser.DeleteDevicesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.EventParser;
 import org.openhab.binding.homematic.internal.communicator.parser.NewDevicesParser;
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
 
 /**
  * Reads a XML-RPC message and handles the method call.
@@ -96,7 +97,7 @@ public class XmlRpcServer implements RpcServer {
      *
      * @author Martin Herbst
      */
-    private class ResponseHandler extends AbstractHandler {
+    private class ResponseHandler extends AbstractHandler implements RpcCallVisitor {
 
         /**
          * {@inheritDoc}
@@ -108,22 +109,64 @@ public class XmlRpcServer implements RpcServer {
             response.setStatus(HttpServletResponse.SC_OK);
             final PrintWriter respWriter = response.getWriter();
             try {
-                XmlRpcResponse xmlResponse = new XmlRpcResponse(request.getInputStream(), config.getEncoding());
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Server parsed XmlRpcMessage:\n{}", xmlResponse);
-                }
-                final String returnValue = handleMethodCall(xmlResponse.getMethodName(), xmlResponse.getResponseData());
+                final String returnValue = handleMessage(request.getInputStream());
                 if (logger.isTraceEnabled()) {
                     logger.trace("Server XmlRpcResponse:\n{}", returnValue);
                 }
                 respWriter.println(returnValue);
-            } catch (SAXException | ParserConfigurationException ex) {
+            } catch (IOException ex) {
                 logger.error(ex.getMessage(), ex);
                 respWriter.println(XML_EMPTY_STRING);
             }
             baseRequest.setHandled(true);
         }
 
+        /**
+         * Decodes the method call directly from the stream and returns a valid result, events are passed to the
+         * listener without materializing the message data.
+         */
+        private String handleMessage(InputStream is) throws IOException {
+            XmlRpcDecoder decoder = new XmlRpcDecoder(config.getEncoding());
+            XMLStreamReader reader = decoder.createReader(is);
+            try {
+                String methodName = decoder.readMethodName(reader);
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Server parsed XmlRpcMessage: {}", methodName);
+                }
+                if (RPC_METHODNAME_EVENT.equals(methodName)) {
+                    decoder.readEvent(reader, this);
+                    return XML_EMPTY_STRING;
+                } else if (RPC_METHODNAME_SYSTEM_MULTICALL.equals(methodName)) {
+                    decoder.readMulticall(reader, this);
+                    return XML_EMPTY_EVENT_LIST;
+                }
+                return handleMethodCall(methodName, decoder.readValues(reader));
+            } finally {
+                decoder.close(reader);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void event(String interfaceId, String address, String key, Object value) {
+            try {
+                HmDatapointInfo dpInfo = new EventParser().parse(address, key, value);
+                listener.eventReceived(dpInfo, value);
+            } catch (Exception ex) {
+                logger.debug("Error handling event {}:{} = {}: {}", address, key, value, ex.getMessage(), ex);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void methodCall(String methodName, Object[] params) throws IOException {
+            handleMethodCall(methodName, params);
+        }
+
         /**
          * Returns a valid result of the method called by the Homematic gateway.
          */
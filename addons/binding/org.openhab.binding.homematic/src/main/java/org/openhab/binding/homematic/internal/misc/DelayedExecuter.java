@@ -9,24 +9,31 @@
 package org.openhab.binding.homematic.internal.misc;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Executes a callback method either immediately or after a given delay for a datapoint.
+ * Executes a callback method either immediately or after a given delay for a datapoint. All delayed events are
+ * scheduled on a shared thread pool, a new delayed event for the same datapoint replaces the pending one.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class DelayedExecuter {
     private static final Logger logger = LoggerFactory.getLogger(DelayedExecuter.class);
+    private static final String DELAYED_POOL_NAME = "homematicGateway";
 
-    private Map<HmDatapointInfo, Timer> delayedEvents = new HashMap<HmDatapointInfo, Timer>();
+    private ConcurrentMap<HmDatapointInfo, DelayedEvent> delayedEvents;
+
+    public DelayedExecuter() {
+        delayedEvents = new ConcurrentHashMap<HmDatapointInfo, DelayedEvent>();
+    }
 
     /**
      * Executes a callback method either immediately or after a given delay.
@@ -34,42 +41,92 @@ public class DelayedExecuter {
     public void start(final HmDatapointInfo dpInfo, final double delay, final DelayedExecuterCallback callback)
             throws IOException, HomematicClientException {
         if (delay > 0.0) {
-            synchronized (DelayedExecuter.class) {
-                logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
-
-                Timer timer = delayedEvents.get(dpInfo);
-                if (timer != null) {
-                    timer.cancel();
-                }
-
-                timer = new Timer();
-                delayedEvents.put(dpInfo, timer);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing delayed event for '{}'", dpInfo);
-                        delayedEvents.remove(dpInfo);
-                        try {
-                            callback.execute();
-                        } catch (Exception ex) {
-                            logger.error(ex.getMessage(), ex);
-                        }
-                    }
-                }, (long) (delay * 1000));
+            logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
+
+            DelayedEvent delayedEvent = new DelayedEvent(dpInfo, callback);
+            DelayedEvent previousEvent = delayedEvents.put(dpInfo, delayedEvent);
+            if (previousEvent != null) {
+                previousEvent.cancel();
             }
+            delayedEvent.schedule((long) (delay * 1000));
         } else {
             callback.execute();
         }
     }
 
+    /**
+     * Cancels the pending delayed event for the datapoint, returns true if there was one.
+     */
+    public boolean cancel(HmDatapointInfo dpInfo) {
+        DelayedEvent delayedEvent = delayedEvents.remove(dpInfo);
+        if (delayedEvent != null) {
+            delayedEvent.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of pending delayed events.
+     */
+    public int getPendingCount() {
+        return delayedEvents.size();
+    }
+
     /**
      * Stops all delayed events.
      */
     public void stop() {
-        for (Timer timer : delayedEvents.values()) {
-            timer.cancel();
+        for (HmDatapointInfo dpInfo : delayedEvents.keySet()) {
+            cancel(dpInfo);
+        }
+    }
+
+    /**
+     * A delayed event for a datapoint, removes itself from the pending events when it is executed.
+     */
+    private class DelayedEvent implements Runnable {
+        private HmDatapointInfo dpInfo;
+        private DelayedExecuterCallback callback;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        public DelayedEvent(HmDatapointInfo dpInfo, DelayedExecuterCallback callback) {
+            this.dpInfo = dpInfo;
+            this.callback = callback;
+        }
+
+        public void schedule(long delayMillis) {
+            future = ThreadPoolManager.getScheduledPool(DELAYED_POOL_NAME).schedule(this, delayMillis,
+                    TimeUnit.MILLISECONDS);
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduledFuture = future;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            if (cancelled || !delayedEvents.remove(dpInfo, this)) {
+                return;
+            }
+            logger.debug("Executing delayed event for '{}'", dpInfo);
+            try {
+                callback.execute();
+            } catch (Exception ex) {
+                logger.error(ex.getMessage(), ex);
+            }
         }
-        delayedEvents.clear();
     }
 
     /**
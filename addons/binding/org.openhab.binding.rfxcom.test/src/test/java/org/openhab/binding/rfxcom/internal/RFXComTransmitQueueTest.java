@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
+import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
+import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+import org.openhab.binding.rfxcom.internal.messages.RFXComRfyMessage.Commands;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage.Response;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent
+ */
+public class RFXComTransmitQueueTest {
+
+    private final List<String> transmitted = new ArrayList<String>();
+    private ScheduledExecutorService scheduler;
+    private RFXComTransmitQueue queue;
+
+    private final RFXComConnectorInterface connector = new RFXComConnectorInterface() {
+
+        @Override
+        public void connect(RFXComBridgeConfiguration device) {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public void sendMessage(byte[] data) throws IOException {
+            transmitted.add(DatatypeConverter.printHexBinary(data));
+        }
+
+        @Override
+        public void addEventListener(RFXComEventListener listener) {
+        }
+
+        @Override
+        public void removeEventListener(RFXComEventListener listener) {
+        }
+    };
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        queue = new RFXComTransmitQueue(connector, scheduler, 5000);
+    }
+
+    @After
+    public void tearDown() {
+        queue.clear();
+        scheduler.shutdownNow();
+    }
+
+    private RFXComMessage lighting2(int unitCode) throws RFXComException {
+        return RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(String.format("0B11000000109B52%02X000080", unitCode)));
+    }
+
+    private RFXComMessage rfy(Commands command) throws RFXComException {
+        return RFXComMessageFactory.createMessage(
+                DatatypeConverter.parseHexBinary(String.format("0C1A000001020301%02X00000000", command.toByte())));
+    }
+
+    private RFXComMessage lighting1(int command) throws RFXComException {
+        return RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(String.format("071000004101%02X00", command)));
+    }
+
+    private RFXComMessage lighting5(int command) throws RFXComException {
+        return RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(String.format("0A140000F0910101%02X0000", command)));
+    }
+
+    private RFXComMessage blinds1(int command) throws RFXComException {
+        return RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(String.format("0919000012345601%02X00", command)));
+    }
+
+    private void fillOutstanding() throws RFXComException {
+        for (int i = 0; i < RFXComTransmitQueue.MAX_OUTSTANDING; i++) {
+            queue.send(lighting2(i + 1));
+        }
+    }
+
+    private RFXComTransmitterMessage response(int seqNbr, Response response) throws RFXComException {
+        String hexMessage = String.format("040201%02X%02X", seqNbr, response.toByte());
+        return (RFXComTransmitterMessage) RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary(hexMessage));
+    }
+
+    @Test
+    public void testResponsesMatchedBySequenceNumber() throws Exception {
+        Future<RFXComTransmitterMessage> first = queue.send(lighting2(1));
+        Future<RFXComTransmitterMessage> second = queue.send(lighting2(2));
+
+        assertEquals("Transmitted without waiting", 2, transmitted.size());
+        assertEquals("Sequence number of first message", "0B11000100109B5201000080", transmitted.get(0));
+        assertEquals("Sequence number of second message", "0B11000200109B5202000080", transmitted.get(1));
+
+        assertTrue("Response accepted", queue.responseReceived(response(2, Response.NAK)));
+        assertFalse("First message still waiting", first.isDone());
+        assertEquals("Second message response", Response.NAK, second.get().response);
+
+        assertTrue("Response accepted", queue.responseReceived(response(1, Response.ACK)));
+        assertEquals("First message response", Response.ACK, first.get().response);
+        assertFalse("Unknown sequence number", queue.responseReceived(response(1, Response.ACK)));
+        assertEquals("Outstanding messages", 0, queue.getOutstandingCount());
+    }
+
+    @Test
+    public void testQueuedMessagesAreCoalesced() throws Exception {
+        fillOutstanding();
+        Future<RFXComTransmitterMessage> queued = queue.send(lighting2(10));
+        Future<RFXComTransmitterMessage> replacing = queue.send(lighting2(10));
+
+        assertSame("Same future for the identical message", queued, replacing);
+        assertEquals("Transmitted messages", RFXComTransmitQueue.MAX_OUTSTANDING, transmitted.size());
+        assertEquals("Queue depth", 1, queue.getQueueDepth());
+
+        queue.responseReceived(response(1, Response.ACK));
+        assertEquals("Queued message transmitted", RFXComTransmitQueue.MAX_OUTSTANDING + 1, transmitted.size());
+        assertEquals("Queue depth", 0, queue.getQueueDepth());
+
+        queue.responseReceived(response(RFXComTransmitQueue.MAX_OUTSTANDING + 1, Response.ACK));
+        assertEquals("Coalesced message response", Response.ACK, replacing.get().response);
+    }
+
+    @Test
+    public void testDifferentCommandsForDeviceAreNotCoalesced() throws Exception {
+        fillOutstanding();
+        Future<RFXComTransmitterMessage> up = queue.send(rfy(Commands.OPEN));
+        Future<RFXComTransmitterMessage> stop = queue.send(rfy(Commands.STOP));
+
+        assertNotSame("Separate future for each command", up, stop);
+        assertEquals("Queue depth", 2, queue.getQueueDepth());
+
+        queue.responseReceived(response(1, Response.ACK));
+        queue.responseReceived(response(2, Response.ACK));
+        assertEquals("UP transmitted", "0C1A0005010203010100000000", transmitted.get(4));
+        assertEquals("STOP transmitted", "0C1A0006010203010000000000", transmitted.get(5));
+    }
+
+    @Test
+    public void testOnlyLastCommandForDeviceIsCoalesced() throws Exception {
+        fillOutstanding();
+        Future<RFXComTransmitterMessage> open = queue.send(rfy(Commands.OPEN));
+        Future<RFXComTransmitterMessage> stop = queue.send(rfy(Commands.STOP));
+        Future<RFXComTransmitterMessage> openAgain = queue.send(rfy(Commands.OPEN));
+        Future<RFXComTransmitterMessage> openLast = queue.send(rfy(Commands.OPEN));
+
+        assertNotSame("OPEN after STOP is queued again", open, openAgain);
+        assertSame("Repeated last OPEN is coalesced", openAgain, openLast);
+        assertEquals("Queue depth", 3, queue.getQueueDepth());
+
+        queue.responseReceived(response(1, Response.ACK));
+        queue.responseReceived(response(2, Response.ACK));
+        queue.responseReceived(response(3, Response.ACK));
+        assertEquals("OPEN transmitted", "0C1A0005010203010100000000", transmitted.get(4));
+        assertEquals("STOP transmitted", "0C1A0006010203010000000000", transmitted.get(5));
+        assertEquals("Final OPEN transmitted", "0C1A0007010203010100000000", transmitted.get(6));
+        assertNotSame("STOP not merged", stop, openAgain);
+    }
+
+    @Test
+    public void testRelativeCommandsAreNotCoalesced() throws Exception {
+        fillOutstanding();
+        Future<RFXComTransmitterMessage> first = queue.send(rfy(Commands.UP_05SEC));
+        Future<RFXComTransmitterMessage> second = queue.send(rfy(Commands.UP_05SEC));
+        Future<RFXComTransmitterMessage> dim = queue.send(lighting1(2));
+        Future<RFXComTransmitterMessage> dimAgain = queue.send(lighting1(2));
+
+        assertNotSame("Separate future for each step", first, second);
+        assertNotSame("Separate future for each dim step", dim, dimAgain);
+        assertEquals("Queue depth", 4, queue.getQueueDepth());
+    }
+
+    @Test
+    public void testColourAndDirectionCommandsAreNotCoalesced() throws Exception {
+        fillOutstanding();
+        for (int command = 0x11; command <= 0x13; command++) {
+            assertNotSame("Separate future for each colour step", queue.send(lighting5(command)),
+                    queue.send(lighting5(command)));
+        }
+        assertNotSame("Separate future for each direction change", queue.send(blinds1(7)), queue.send(blinds1(7)));
+        assertEquals("Queue depth", 8, queue.getQueueDepth());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testTimeout() throws Exception {
+        queue = new RFXComTransmitQueue(connector, scheduler, 10);
+        queue.send(lighting2(1)).get(1, TimeUnit.SECONDS);
+    }
+}
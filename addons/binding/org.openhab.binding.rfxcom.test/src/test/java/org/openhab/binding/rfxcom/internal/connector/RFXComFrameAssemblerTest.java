@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent
+ */
+public class RFXComFrameAssemblerTest {
+
+    private List<String> frames;
+    private RFXComFrameAssembler assembler;
+
+    @Before
+    public void setUp() {
+        frames = new ArrayList<String>();
+        assembler = new RFXComFrameAssembler(new RFXComFrameAssembler.FrameListener() {
+            @Override
+            public void frameReceived(byte[] buffer, int offset, int length) {
+                frames.add(DatatypeConverter.printHexBinary(Arrays.copyOfRange(buffer, offset, offset + length)));
+            }
+        });
+    }
+
+    @Test
+    public void testFramesSplitOverReads() {
+        byte[] data = DatatypeConverter.parseHexBinary("0A520211700200A7440259" + "0B550217B6000000004D3C69");
+        assembler.write(data, 0, 5);
+        assertEquals("No frame before complete", 0, frames.size());
+        assembler.write(data, 5, data.length - 5);
+
+        assertEquals("Frame count", 2, frames.size());
+        assertEquals("First frame", "0A520211700200A7440259", frames.get(0));
+        assertEquals("Second frame", "0B550217B6000000004D3C69", frames.get(1));
+        assertEquals("Frame count statistics", 2, assembler.getFrameCount());
+    }
+
+    @Test
+    public void testInvalidStartBytesAreSkipped() {
+        byte[] data = DatatypeConverter.parseHexBinary("00FF" + "0A520211700200A7440259");
+        assembler.write(data, 0, data.length);
+
+        assertEquals("Frame count", 1, frames.size());
+        assertEquals("Frame", "0A520211700200A7440259", frames.get(0));
+    }
+
+    @Test
+    public void testFramesWrappingAroundTheRingBuffer() throws IOException {
+        String frame = "0B550217B6000000004D3C69";
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            hex.append(frame);
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(DatatypeConverter.parseHexBinary(hex.toString()));
+        while (assembler.read(in) > 0) {
+        }
+
+        assertEquals("Frame count", 200, frames.size());
+        for (String received : frames) {
+            assertEquals("Frame", frame, received);
+        }
+    }
+}
@@ -8,8 +8,13 @@
  */
 package org.openhab.binding.rfxcom.handler;
 
+import static org.openhab.binding.rfxcom.RFXComBindingConstants.packetTypeThingMap;
+
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -20,10 +25,12 @@ import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.rfxcom.RFXComBindingConstants;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.RFXComTransmitQueue;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -43,6 +50,10 @@ import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import gnu.io.NoSuchPortException;
 
 /**
@@ -60,11 +71,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     private MessageListener eventListener = new MessageListener();
 
     private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private Map<String, List<DeviceMessageListener>> deviceListeners = new ConcurrentHashMap<>();
 
     private static final int timeout = 5000;
-    private static byte seqNbr = 0;
-    private static RFXComTransmitterMessage responseMessage = null;
-    private Object notifierObject = new Object();
+    private volatile RFXComTransmitQueue transmitQueue;
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
 
@@ -84,6 +94,13 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
             unregisterDeviceStatusListener(deviceStatusListener);
         }
+        deviceListeners.clear();
+
+        if (transmitQueue != null) {
+            logger.debug("Transmit queue: {}", transmitQueue);
+            transmitQueue.clear();
+            transmitQueue = null;
+        }
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -119,26 +136,6 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
-    private static synchronized byte getSeqNumber() {
-        return seqNbr;
-    }
-
-    private static synchronized byte getNextSeqNumber() {
-        if (++seqNbr == 0) {
-            seqNbr = 1;
-        }
-
-        return seqNbr;
-    }
-
-    private static synchronized RFXComTransmitterMessage getResponseMessage() {
-        return responseMessage;
-    }
-
-    private static synchronized void setResponseMessage(RFXComTransmitterMessage respMessage) {
-        responseMessage = respMessage;
-    }
-
     private void connect() {
         logger.debug("Connecting to RFXCOM transceiver");
 
@@ -161,6 +158,11 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 connector.disconnect();
                 connector.connect(configuration);
 
+                if (transmitQueue != null) {
+                    transmitQueue.clear();
+                }
+                transmitQueue = new RFXComTransmitQueue(connector, scheduler, timeout);
+
                 logger.debug("Reset controller");
                 connector.sendMessage(RFXComMessageFactory.CMD_RESET);
 
@@ -317,32 +319,20 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         throw new IllegalArgumentException("");
     }
 
-    public synchronized void sendMessage(RFXComMessage msg) throws RFXComException {
-
-        ((RFXComBaseMessage) msg).seqNbr = getNextSeqNumber();
-        byte[] data = msg.decodeMessage();
-
-        logger.debug("Transmitting message '{}'", msg);
-        logger.trace("Transmitting data: {}", DatatypeConverter.printHexBinary(data));
-
-        setResponseMessage(null);
-
-        try {
-            connector.sendMessage(data);
-        } catch (IOException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
-            throw new RFXComException("Send failed, reason: " + e.getMessage(), e);
+    /**
+     * Queues the message for transmitting, the returned future completes with the response of the transceiver.
+     */
+    public ListenableFuture<RFXComTransmitterMessage> sendMessage(RFXComMessage msg) throws RFXComException {
+        RFXComTransmitQueue queue = transmitQueue;
+        if (queue == null) {
+            throw new RFXComException("RFXCOM transceiver not connected");
         }
 
-        try {
-
-            RFXComTransmitterMessage resp = null;
-            synchronized (notifierObject) {
-                notifierObject.wait(timeout);
-                resp = getResponseMessage();
-            }
+        ListenableFuture<RFXComTransmitterMessage> future = queue.send(msg);
+        Futures.addCallback(future, new FutureCallback<RFXComTransmitterMessage>() {
 
-            if (resp != null) {
+            @Override
+            public void onSuccess(RFXComTransmitterMessage resp) {
                 switch (resp.response) {
                     case ACK:
                     case ACK_DELAYED:
@@ -351,16 +341,22 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     case NAK:
                     case NAK_INVALID_AC_ADDRESS:
+                        logger.warn("Command not transmitted, '{}' received", resp.response);
+                        break;
                 }
-            } else {
-                logger.warn("No response received from transceiver");
-                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
             }
 
-        } catch (InterruptedException ie) {
-            logger.error("No acknowledge received from RFXCOM controller, timeout {}ms ", timeout);
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
-        }
+            @Override
+            public void onFailure(Throwable t) {
+                if (t instanceof CancellationException) {
+                    logger.debug("Transmitting cancelled, transmit queue cleared");
+                    return;
+                }
+                logger.warn("Transmitting error: {}", t.getMessage());
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
+            }
+        });
+        return future;
     }
 
     private class MessageListener implements RFXComEventListener {
@@ -380,20 +376,20 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                 } else if (message instanceof RFXComTransmitterMessage) {
                     RFXComTransmitterMessage resp = (RFXComTransmitterMessage) message;
 
-                    byte seqNbr = getSeqNumber();
-                    if (resp.seqNbr == seqNbr) {
+                    RFXComTransmitQueue queue = transmitQueue;
+                    if (queue != null && queue.responseReceived(resp)) {
                         logger.debug("Transmitter response received: {}", message.toString());
-                        setResponseMessage(resp);
-                        synchronized (notifierObject) {
-                            notifierObject.notify();
-                        }
                     } else {
-                        logger.warn("Sequence number '{}' does not match, expecting number '{}'", resp.seqNbr, seqNbr);
+                        logger.warn("No message with sequence number '{}' waiting for a response", resp.seqNbr);
                     }
 
                 } else {
-
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
+                    List<DeviceMessageListener> listeners = getDeviceMessageListeners(message);
+                    if (listeners == null || listeners.isEmpty()) {
+                        // unknown device, e.g. for the discovery
+                        listeners = deviceStatusListeners;
+                    }
+                    for (DeviceMessageListener deviceStatusListener : listeners) {
                         try {
                             deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
                         } catch (Exception e) {
@@ -418,6 +414,48 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Returns the listeners registered for the thing type and device id of the message.
+     */
+    private List<DeviceMessageListener> getDeviceMessageListeners(RFXComMessage message) {
+        ThingTypeUID thingTypeUID = packetTypeThingMap.get(((RFXComBaseMessage) message).packetType);
+        if (thingTypeUID == null) {
+            return null;
+        }
+        return deviceListeners.get(getRoutingKey(thingTypeUID, message.getDeviceId()));
+    }
+
+    private static String getRoutingKey(ThingTypeUID thingTypeUID, String deviceId) {
+        return thingTypeUID.getId() + ":" + deviceId;
+    }
+
+    /**
+     * Registers a listener for the messages of one device. Messages of devices without a registered listener are
+     * passed to the listeners registered with {@link #registerDeviceStatusListener(DeviceMessageListener)}.
+     */
+    public synchronized boolean registerDeviceMessageListener(ThingTypeUID thingTypeUID, String deviceId,
+            DeviceMessageListener deviceMessageListener) {
+        if (deviceMessageListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceMessageListener.");
+        }
+        String key = getRoutingKey(thingTypeUID, deviceId);
+        List<DeviceMessageListener> listeners = deviceListeners.get(key);
+        if (listeners == null) {
+            listeners = new CopyOnWriteArrayList<>();
+            deviceListeners.put(key, listeners);
+        }
+        return !listeners.contains(deviceMessageListener) && listeners.add(deviceMessageListener);
+    }
+
+    public synchronized boolean unregisterDeviceMessageListener(ThingTypeUID thingTypeUID, String deviceId,
+            DeviceMessageListener deviceMessageListener) {
+        if (deviceMessageListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceMessageListener.");
+        }
+        List<DeviceMessageListener> listeners = deviceListeners.get(getRoutingKey(thingTypeUID, deviceId));
+        return listeners != null && listeners.remove(deviceMessageListener);
+    }
+
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
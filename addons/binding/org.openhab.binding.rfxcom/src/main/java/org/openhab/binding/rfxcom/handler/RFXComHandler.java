@@ -127,7 +127,7 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
         } else if (thingHandler != null && bridgeStatus != null) {
 
             bridgeHandler = (RFXComBridgeHandler) thingHandler;
-            bridgeHandler.registerDeviceStatusListener(this);
+            bridgeHandler.registerDeviceMessageListener(getThing().getThingTypeUID(), config.deviceId, this);
 
             if (bridgeStatus == ThingStatus.ONLINE) {
                 updateStatus(ThingStatus.ONLINE);
@@ -148,7 +148,7 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
     public void dispose() {
         logger.debug("Thing {} disposed.", getThing().getUID());
         if (bridgeHandler != null) {
-            bridgeHandler.unregisterDeviceStatusListener(this);
+            bridgeHandler.unregisterDeviceMessageListener(getThing().getThingTypeUID(), config.deviceId, this);
         }
         bridgeHandler = null;
         super.dispose();
@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBlinds1Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting1Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComLighting5Message;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComRfyMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTransmitterMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Transmit queue for the RFXCOM transceiver. Up to {@link #MAX_OUTSTANDING} messages are transmitted without waiting
+ * for the response of the previous message, the responses are matched to the messages by the sequence number. A
+ * message which is identical to the last message still waiting in the queue for the same device is not queued again,
+ * both senders get the result of the queued message. Relative commands like dimming steps are never coalesced, as each of them has an effect.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComTransmitQueue {
+
+    public static final int MAX_OUTSTANDING = 4;
+    public static final int MAX_QUEUED = 100;
+
+    private static final int LATENCY_SAMPLES = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(RFXComTransmitQueue.class);
+
+    private final RFXComConnectorInterface connector;
+    private final ScheduledExecutorService scheduler;
+    private final long timeout;
+
+    private final LinkedList<Transmission> queue = new LinkedList<>();
+    private final Map<Byte, Transmission> outstanding = new HashMap<>();
+    private byte seqNbr = 0;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+
+    public RFXComTransmitQueue(RFXComConnectorInterface connector, ScheduledExecutorService scheduler,
+            long timeout) {
+        this.connector = connector;
+        this.scheduler = scheduler;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Queues the message for transmitting. The future completes with the ACK or NAK response of the transceiver, it
+     * fails with a {@link RFXComException} if the transceiver did not respond in time or the message could not be
+     * written.
+     */
+    public synchronized ListenableFuture<RFXComTransmitterMessage> send(RFXComMessage msg) throws RFXComException {
+        byte[] data = msg.decodeMessage();
+        String device = String.format("%02X%02X:%s", data[1], data[2], msg.getDeviceId());
+        String key = getCoalesceKey(msg, data);
+        if (key != null) {
+            Transmission last = getLastQueued(device);
+            if (last != null && key.equals(last.key)) {
+                logger.debug("Message '{}' is already queued", msg);
+                return last.future;
+            }
+        }
+        if (queue.size() >= MAX_QUEUED) {
+            throw new RFXComException("Transmit queue is full");
+        }
+
+        Transmission transmission = new Transmission(device, key, msg);
+        queue.add(transmission);
+        transmitNext();
+        return transmission.future;
+    }
+
+    /**
+     * Completes the message with the sequence number of the response.
+     *
+     * @return false, if no message with the sequence number is outstanding
+     */
+    public synchronized boolean responseReceived(RFXComTransmitterMessage response) {
+        Transmission transmission = outstanding.remove(response.seqNbr);
+        if (transmission == null) {
+            return false;
+        }
+        transmission.timeoutJob.cancel(false);
+        recordLatency(System.nanoTime() - transmission.sent);
+        transmission.future.set(response);
+        transmitNext();
+        return true;
+    }
+
+    /**
+     * Cancels all queued and outstanding messages, their futures fail with a
+     * {@link java.util.concurrent.CancellationException}.
+     */
+    public synchronized void clear() {
+        for (Transmission transmission : queue) {
+            transmission.future.cancel(false);
+        }
+        queue.clear();
+        for (Transmission transmission : outstanding.values()) {
+            transmission.timeoutJob.cancel(false);
+            transmission.future.cancel(false);
+        }
+        outstanding.clear();
+    }
+
+    /**
+     * Returns the number of messages waiting for transmission.
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of transmitted messages waiting for the response.
+     */
+    public synchronized int getOutstandingCount() {
+        return outstanding.size();
+    }
+
+    /**
+     * Returns the percentile of the time in milliseconds from transmitting a message until the response is received,
+     * calculated from the last {@value #LATENCY_SAMPLES} responses.
+     */
+    public synchronized long getAckLatencyPercentile(int percentile) {
+        int count = Math.min(latencyCount, LATENCY_SAMPLES);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("queued: %d, outstanding: %d, ack latency p50: %d ms, p95: %d ms, p99: %d ms",
+                queue.size(), outstanding.size(), getAckLatencyPercentile(50), getAckLatencyPercentile(95),
+                getAckLatencyPercentile(99));
+    }
+
+    private void transmitNext() {
+        while (outstanding.size() < MAX_OUTSTANDING && !queue.isEmpty()) {
+            final Transmission transmission = queue.removeFirst();
+            final byte seq = getNextSeqNumber();
+            try {
+                ((RFXComBaseMessage) transmission.message).seqNbr = seq;
+                byte[] data = transmission.message.decodeMessage();
+
+                logger.debug("Transmitting message '{}'", transmission.message);
+                logger.trace("Transmitting data: {}", DatatypeConverter.printHexBinary(data));
+
+                transmission.sent = System.nanoTime();
+                outstanding.put(seq, transmission);
+                transmission.timeoutJob = scheduler.schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        timeout(seq, transmission);
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+                connector.sendMessage(data);
+            } catch (IOException e) {
+                fail(seq, transmission, new RFXComException("Send failed, reason: " + e.getMessage(), e));
+            } catch (RFXComException e) {
+                fail(seq, transmission, e);
+            }
+        }
+    }
+
+    private synchronized void timeout(byte seq, Transmission transmission) {
+        if (outstanding.get(seq) == transmission) {
+            logger.warn("No response received from transceiver for sequence number '{}'", seq);
+            fail(seq, transmission, new RFXComException("No response received from transceiver"));
+            transmitNext();
+        }
+    }
+
+    private void fail(byte seq, Transmission transmission, RFXComException e) {
+        if (outstanding.remove(seq) != null) {
+            transmission.timeoutJob.cancel(false);
+        }
+        transmission.future.setException(e);
+    }
+
+    /**
+     * Returns the next sequence number which is not used by an outstanding message, 0 is not used.
+     */
+    private byte getNextSeqNumber() {
+        do {
+            if (++seqNbr == 0) {
+                seqNbr = 1;
+            }
+        } while (outstanding.containsKey(seqNbr));
+        return seqNbr;
+    }
+
+    private void recordLatency(long nanos) {
+        latencies[latencyCount++ % LATENCY_SAMPLES] = nanos;
+        if (latencyCount == 2 * LATENCY_SAMPLES) {
+            latencyCount = LATENCY_SAMPLES;
+        }
+    }
+
+    /**
+     * Returns the message queued last for the device, only this one may be merged with a new message of the device
+     * without changing the order of the commands.
+     */
+    private Transmission getLastQueued(String device) {
+        Iterator<Transmission> it = queue.descendingIterator();
+        while (it.hasNext()) {
+            Transmission queued = it.next();
+            if (device.equals(queued.device)) {
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the data of the message without the sequence number, or null if the message must not be coalesced.
+     */
+    private static String getCoalesceKey(RFXComMessage msg, byte[] data) {
+        if (isRelativeCommand(msg)) {
+            return null;
+        }
+        byte[] key = Arrays.copyOf(data, data.length);
+        key[3] = 0;
+        return DatatypeConverter.printHexBinary(key);
+    }
+
+    private static boolean isRelativeCommand(RFXComMessage msg) {
+        if (msg instanceof RFXComLighting1Message) {
+            RFXComLighting1Message.Commands command = ((RFXComLighting1Message) msg).command;
+            return command == RFXComLighting1Message.Commands.DIM || command == RFXComLighting1Message.Commands.BRIGHT;
+        }
+        if (msg instanceof RFXComLighting5Message) {
+            switch (((RFXComLighting5Message) msg).command) {
+                case COLOUR_PALETTE:
+                case COLOUR_TONE:
+                case COLOUR_CYCLE:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        if (msg instanceof RFXComBlinds1Message) {
+            return ((RFXComBlinds1Message) msg).command == RFXComBlinds1Message.Commands.CHANGE_DIRECTON;
+        }
+        if (msg instanceof RFXComRfyMessage) {
+            switch (((RFXComRfyMessage) msg).command) {
+                case UP_05SEC:
+                case DOWN_05SEC:
+                case UP_2SEC:
+                case DOWN_2SEC:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A queued or transmitted message.
+     */
+    private static class Transmission {
+        private final String device;
+        private final String key;
+        private final SettableFuture<RFXComTransmitterMessage> future = SettableFuture.create();
+        private final RFXComMessage message;
+        private long sent;
+        private ScheduledFuture<?> timeoutJob;
+
+        public Transmission(String device, String key, RFXComMessage message) {
+            this.device = device;
+            this.key = key;
+            this.message = message;
+        }
+    }
+}
@@ -9,6 +9,7 @@
 package org.openhab.binding.rfxcom.internal.connector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -20,7 +21,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author James Hewitt-Thomas
  */
-public abstract class RFXComBaseConnector implements RFXComConnectorInterface {
+public abstract class RFXComBaseConnector implements RFXComConnectorInterface, RFXComFrameAssembler.FrameListener {
 
     private static final Logger logger = LoggerFactory.getLogger(RFXComBaseConnector.class);
 
@@ -54,6 +55,15 @@ public abstract class RFXComBaseConnector implements RFXComConnectorInterface {
         }
     }
 
+    /**
+     * Called by the {@link RFXComFrameAssembler} for every complete frame. The frame is copied once, because the
+     * messages keep the raw data.
+     */
+    @Override
+    public void frameReceived(byte[] buffer, int offset, int length) {
+        sendMsgToListeners(Arrays.copyOfRange(buffer, offset, offset + length));
+    }
+
     void sendErrorToListeners(String error) {
         try {
             Iterator<RFXComEventListener> iterator = _listeners.iterator();
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Assembles RFXCOM frames from a byte stream. The data is read directly into a ring buffer and complete frames are
+ * handed to the {@link FrameListener} as a view on the ring buffer, only frames wrapping around the end of the ring
+ * buffer are copied into a scratch buffer. The buffers given to the listener are only valid during the callback.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComFrameAssembler {
+
+    /**
+     * Receives the assembled frames.
+     */
+    public interface FrameListener {
+
+        /**
+         * Called for every complete frame, the data is only valid during the call.
+         *
+         * @param buffer
+         *            buffer containing the frame
+         * @param offset
+         *            start of the frame in the buffer
+         * @param length
+         *            length of the frame including the length byte
+         */
+        void frameReceived(byte[] buffer, int offset, int length);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(RFXComFrameAssembler.class);
+
+    private static final int RING_SIZE = 1024;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final int MAX_FRAME_LENGTH = Byte.MAX_VALUE + 1;
+
+    private final byte[] ring = new byte[RING_SIZE];
+    private final byte[] scratch = new byte[MAX_FRAME_LENGTH];
+    private final FrameListener listener;
+
+    // positions are counted continuously, the index in the ring is position & RING_MASK
+    private long readPosition;
+    private long writePosition;
+
+    private long lastFillNanos;
+    private long frameStartNanos = -1;
+
+    private long frameCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    public RFXComFrameAssembler(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the available data from the stream into the ring buffer and passes all complete frames to the listener.
+     * Blocks until data is available.
+     *
+     * @return the number of bytes read or -1 at the end of the stream
+     */
+    public int read(InputStream in) throws IOException {
+        int writeIndex = (int) (writePosition & RING_MASK);
+        int free = RING_SIZE - (int) (writePosition - readPosition);
+        int len = in.read(ring, writeIndex, Math.min(free, RING_SIZE - writeIndex));
+        if (len > 0) {
+            lastFillNanos = System.nanoTime();
+            if (logger.isTraceEnabled()) {
+                logger.trace("Received data (len={}): {}", len,
+                        DatatypeConverter.printHexBinary(Arrays.copyOfRange(ring, writeIndex, writeIndex + len)));
+            }
+            writePosition += len;
+            assemble();
+        }
+        return len;
+    }
+
+    /**
+     * Writes the data into the ring buffer and passes all complete frames to the listener.
+     */
+    public void write(byte[] data, int offset, int length) {
+        lastFillNanos = System.nanoTime();
+        for (int i = 0; i < length; i++) {
+            if (writePosition - readPosition == RING_SIZE) {
+                assemble();
+            }
+            ring[(int) (writePosition++ & RING_MASK)] = data[offset + i];
+        }
+        assemble();
+    }
+
+    private void assemble() {
+        while (readPosition < writePosition) {
+            int readIndex = (int) (readPosition & RING_MASK);
+            byte lengthByte = ring[readIndex];
+            if (lengthByte <= 0) {
+                // not a valid frame start, skip until a new start is found
+                readPosition++;
+                frameStartNanos = -1;
+                continue;
+            }
+
+            if (frameStartNanos < 0) {
+                frameStartNanos = lastFillNanos;
+            }
+            int frameLength = lengthByte + 1;
+            if (writePosition - readPosition < frameLength) {
+                // wait for the rest of the frame
+                return;
+            }
+
+            recordLatency(System.nanoTime() - frameStartNanos);
+            frameStartNanos = -1;
+            if (readIndex + frameLength <= RING_SIZE) {
+                listener.frameReceived(ring, readIndex, frameLength);
+            } else {
+                int firstPart = RING_SIZE - readIndex;
+                System.arraycopy(ring, readIndex, scratch, 0, firstPart);
+                System.arraycopy(ring, 0, scratch, firstPart, frameLength - firstPart);
+                listener.frameReceived(scratch, 0, frameLength);
+            }
+            readPosition += frameLength;
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        frameCount++;
+        totalLatencyNanos += nanos;
+        if (nanos > maxLatencyNanos) {
+            maxLatencyNanos = nanos;
+        }
+    }
+
+    /**
+     * Returns the number of assembled frames.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the average time in microseconds from receiving the first byte of a frame until the frame is
+     * complete.
+     */
+    public long getAverageLatency() {
+        return frameCount == 0 ? 0 : totalLatencyNanos / frameCount / 1000;
+    }
+
+    /**
+     * Returns the maximum time in microseconds from receiving the first byte of a frame until the frame is
+     * complete.
+     */
+    public long getMaxLatency() {
+        return maxLatencyNanos / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames: %d, assembly latency avg: %d us, max: %d us", getFrameCount(),
+                getAverageLatency(), getMaxLatency());
+    }
+}
@@ -8,12 +8,10 @@
  */
 package org.openhab.binding.rfxcom.internal.connector;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.util.Arrays;
-
-import javax.xml.bind.DatatypeConverter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,79 +47,27 @@ public class RFXComStreamReader extends Thread {
 
     @Override
     public void run() {
-        final int dataBufferMaxLen = Byte.MAX_VALUE;
-
-        byte[] dataBuffer = new byte[dataBufferMaxLen];
-
-        int msgLen = 0;
-        int index = 0;
-        boolean start_found = false;
+        RFXComFrameAssembler assembler = new RFXComFrameAssembler(connector);
 
         logger.debug("Data listener started");
 
         try {
-
-            byte[] tmpData = new byte[20];
-            int len = -1;
-
+            // the read blocks until data is available, there is no need to poll
             while (interrupted != true) {
-
-                if ((len = in.read(tmpData)) > 0) {
-
-                    byte[] logData = Arrays.copyOf(tmpData, len);
-                    logger.trace("Received data (len={}): {}", len, DatatypeConverter.printHexBinary(logData));
-
-                    for (int i = 0; i < len; i++) {
-
-                        if (index > dataBufferMaxLen) {
-                            // too many bytes received, try to find new
-                            // start
-                            start_found = false;
-                        }
-
-                        if (start_found == false && tmpData[i] > 0) {
-
-                            start_found = true;
-                            index = 0;
-                            dataBuffer[index++] = tmpData[i];
-                            msgLen = tmpData[i] + 1;
-
-                        } else if (start_found) {
-
-                            dataBuffer[index++] = tmpData[i];
-
-                            if (index == msgLen) {
-
-                                // whole message received, send an event
-
-                                byte[] msg = new byte[msgLen];
-
-                                for (int j = 0; j < msgLen; j++) {
-                                    msg[j] = dataBuffer[j];
-                                }
-
-                                connector.sendMsgToListeners(msg);
-
-                                // find new start
-                                start_found = false;
-                            }
-                        }
-                    }
-                } else {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                    }
+                if (assembler.read(in) < 0) {
+                    throw new EOFException("End of stream reached");
                 }
             }
         } catch (InterruptedIOException e) {
             Thread.currentThread().interrupt();
             logger.error("Interrupted via InterruptedIOException");
         } catch (IOException e) {
-            logger.error("Reading from serial port failed", e);
-            connector.sendErrorToListeners(e.getMessage());
+            if (!interrupted) {
+                logger.error("Reading from serial port failed", e);
+                connector.sendErrorToListeners(e.getMessage());
+            }
         }
 
-        logger.debug("Data listener stopped");
+        logger.debug("Data listener stopped, {}", assembler);
     }
-}
\ No newline at end of file
+}
@@ -73,6 +73,14 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
         FS20(114),
         IO_LINES(128);
 
+        private static final PacketType[] packetTypesByByte = new PacketType[256];
+
+        static {
+            for (PacketType packetType : PacketType.values()) {
+                packetTypesByByte[packetType.packetType] = packetType;
+            }
+        }
+
         private final int packetType;
 
         PacketType(int packetType) {
@@ -84,13 +92,11 @@ public abstract class RFXComBaseMessage implements RFXComMessage {
         }
 
         public static PacketType fromByte(int input) throws RFXComUnsupportedValueException {
-            for (PacketType packetType : PacketType.values()) {
-                if (packetType.packetType == input) {
-                    return packetType;
-                }
+            PacketType packetType = input >= 0 && input < packetTypesByByte.length ? packetTypesByByte[input] : null;
+            if (packetType == null) {
+                throw new RFXComUnsupportedValueException(PacketType.class, input);
             }
-
-            throw new RFXComUnsupportedValueException(PacketType.class, input);
+            return packetType;
         }
 
     }
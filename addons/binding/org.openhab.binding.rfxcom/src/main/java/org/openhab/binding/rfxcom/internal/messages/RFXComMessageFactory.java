@@ -8,70 +8,76 @@
  */
 package org.openhab.binding.rfxcom.internal.messages;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 
 public class RFXComMessageFactory {
 
-    @SuppressWarnings("serial")
-    private static final Map<PacketType, Class<? extends RFXComMessage>> messageClasses = Collections
-            .unmodifiableMap(new HashMap<PacketType, Class<? extends RFXComMessage>>() {
-                {
-                    put(PacketType.INTERFACE_CONTROL, RFXComControlMessage.class);
-                    put(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage.class);
-                    put(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage.class);
-                    put(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage.class);
-                    put(PacketType.LIGHTING1, RFXComLighting1Message.class);
-                    put(PacketType.LIGHTING2, RFXComLighting2Message.class);
-                    // put(PacketType.LIGHTING3, RFXComLighting3Message.class);
-                    put(PacketType.LIGHTING4, RFXComLighting4Message.class);
-                    put(PacketType.LIGHTING5, RFXComLighting5Message.class);
-                    put(PacketType.LIGHTING6, RFXComLighting6Message.class);
-                    // put(PacketType.CHIME, RFXComChimeMessage.class);
-                    // put(PacketType.FAN, RFXComFanMessage.class);
-                    put(PacketType.CURTAIN1, RFXComCurtain1Message.class);
-                    put(PacketType.BLINDS1, RFXComBlinds1Message.class);
-                    put(PacketType.RFY, RFXComRfyMessage.class);
-                    // put(PacketType.HOME_CONFORT, RFXComHomeConfort.class);
-                    put(PacketType.SECURITY1, RFXComSecurity1Message.class);
-                    // put(PacketType.SECURITY2, RFXComSecurity2Message.class);
-                    // put(PacketType.CAMERA1, RFXComCamera1Message.class);
-                    // put(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage.class);
-                    put(PacketType.THERMOSTAT1, RFXComThermostat1Message.class);
-                    // put(PacketType.THERMOSTAT2, RFXComThermostat2Message.class);
-                    // put(PacketType.THERMOSTAT3, RFXComThermostat3Message.class);
-                    // put(PacketType.RADIATOR1, RFXComRadiator1Message.class);
-                    // put(PacketType.BBQ1, RFXComBBQMessage.class);
-                    put(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage.class);
-                    put(PacketType.TEMPERATURE, RFXComTemperatureMessage.class);
-                    put(PacketType.HUMIDITY, RFXComHumidityMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage.class);
-                    // put(PacketType.BAROMETRIC, RFXComBarometricMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage.class);
-                    put(PacketType.RAIN, RFXComRainMessage.class);
-                    put(PacketType.WIND, RFXComWindMessage.class);
-                    // put(PacketType.UV, RFXComUVMessage.class);
-                    put(PacketType.DATE_TIME, RFXComDateTimeMessage.class);
-                    // put(PacketType.CURRENT, RFXComCurrentMessage.class);
-                    put(PacketType.ENERGY, RFXComEnergyMessage.class);
-                    put(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage.class);
-                    // put(PacketType.POWER, RFXComPowerMessage.class);
-                    // put(PacketType.WEIGHT, RFXComWeightMessage.class);
-                    // put(PacketType.GAS, RFXComGasMessage.class);
-                    // put(PacketType.WATER, RFXComWaterMessage.class);
-                    // put(PacketType.RFXSENSOR, RFXComRFXSensorMessage.class);
-                    // put(PacketType.RFXMETER, RFXComRFXMeterMessage.class);
-                    // put(PacketType.FS20, RFXComFS20Message.class);
-                    // put(PacketType.IO_LINES, RFXComIOLinesMessage.class);
-                }
-            });
+    /**
+     * Creates an empty message of a packet type.
+     */
+    private interface MessageCreator {
+        RFXComMessage create();
+    }
+
+    /**
+     * Message creators indexed by the packet type byte, a table lookup instead of reflection for every packet.
+     */
+    private static final MessageCreator[] messageCreators = new MessageCreator[256];
+
+    static {
+        register(PacketType.INTERFACE_CONTROL, RFXComControlMessage::new);
+        register(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage::new);
+        register(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage::new);
+        register(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage::new);
+        register(PacketType.LIGHTING1, RFXComLighting1Message::new);
+        register(PacketType.LIGHTING2, RFXComLighting2Message::new);
+        // register(PacketType.LIGHTING3, RFXComLighting3Message::new);
+        register(PacketType.LIGHTING4, RFXComLighting4Message::new);
+        register(PacketType.LIGHTING5, RFXComLighting5Message::new);
+        register(PacketType.LIGHTING6, RFXComLighting6Message::new);
+        // register(PacketType.CHIME, RFXComChimeMessage::new);
+        // register(PacketType.FAN, RFXComFanMessage::new);
+        register(PacketType.CURTAIN1, RFXComCurtain1Message::new);
+        register(PacketType.BLINDS1, RFXComBlinds1Message::new);
+        register(PacketType.RFY, RFXComRfyMessage::new);
+        // register(PacketType.HOME_CONFORT, RFXComHomeConfort::new);
+        register(PacketType.SECURITY1, RFXComSecurity1Message::new);
+        // register(PacketType.SECURITY2, RFXComSecurity2Message::new);
+        // register(PacketType.CAMERA1, RFXComCamera1Message::new);
+        // register(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage::new);
+        register(PacketType.THERMOSTAT1, RFXComThermostat1Message::new);
+        // register(PacketType.THERMOSTAT2, RFXComThermostat2Message::new);
+        // register(PacketType.THERMOSTAT3, RFXComThermostat3Message::new);
+        // register(PacketType.RADIATOR1, RFXComRadiator1Message::new);
+        // register(PacketType.BBQ1, RFXComBBQMessage::new);
+        register(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage::new);
+        register(PacketType.TEMPERATURE, RFXComTemperatureMessage::new);
+        register(PacketType.HUMIDITY, RFXComHumidityMessage::new);
+        register(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage::new);
+        // register(PacketType.BAROMETRIC, RFXComBarometricMessage::new);
+        register(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage::new);
+        register(PacketType.RAIN, RFXComRainMessage::new);
+        register(PacketType.WIND, RFXComWindMessage::new);
+        // register(PacketType.UV, RFXComUVMessage::new);
+        register(PacketType.DATE_TIME, RFXComDateTimeMessage::new);
+        // register(PacketType.CURRENT, RFXComCurrentMessage::new);
+        register(PacketType.ENERGY, RFXComEnergyMessage::new);
+        register(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage::new);
+        // register(PacketType.POWER, RFXComPowerMessage::new);
+        // register(PacketType.WEIGHT, RFXComWeightMessage::new);
+        // register(PacketType.GAS, RFXComGasMessage::new);
+        // register(PacketType.WATER, RFXComWaterMessage::new);
+        // register(PacketType.RFXSENSOR, RFXComRFXSensorMessage::new);
+        // register(PacketType.RFXMETER, RFXComRFXMeterMessage::new);
+        // register(PacketType.FS20, RFXComFS20Message::new);
+        // register(PacketType.IO_LINES, RFXComIOLinesMessage::new);
+    }
+
+    private static void register(PacketType packetType, MessageCreator creator) {
+        messageCreators[packetType.toByte() & 0xFF] = creator;
+    }
 
     /**
      * Command to reset RFXCOM controller.
@@ -102,37 +108,24 @@ public class RFXComMessageFactory {
             0x00, 0x00, 0x00, 0x00, 0x00 };
 
     public static RFXComMessage createMessage(PacketType packetType) throws RFXComException {
-
-        try {
-            Class<? extends RFXComMessage> cl = messageClasses.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
-            }
-            return cl.newInstance();
-        } catch (IllegalAccessException | InstantiationException e) {
-            throw new RFXComException(e);
-        }
+        return getCreator(packetType).create();
     }
 
     public static RFXComMessage createMessage(byte[] packet) throws RFXComException {
         PacketType packetType = PacketType.fromByte(packet[1]);
 
-        try {
-            Class<? extends RFXComMessage> cl = messageClasses.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
-            }
-            Constructor<?> c = cl.getConstructor(byte[].class);
-            return (RFXComMessage) c.newInstance(packet);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof RFXComException) {
-                throw (RFXComException) e.getCause();
-            } else {
-                throw new RFXComException(e);
-            }
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException e) {
-            throw new RFXComException(e);
+        // all byte[] constructors just call encodeMessage on the empty message
+        RFXComMessage message = getCreator(packetType).create();
+        message.encodeMessage(packet);
+        return message;
+    }
+
+    private static MessageCreator getCreator(PacketType packetType) throws RFXComMessageNotImplementedException {
+        MessageCreator creator = messageCreators[packetType.toByte() & 0xFF];
+        if (creator == null) {
+            throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
         }
+        return creator;
     }
 
     public static PacketType convertPacketType(String packetType) throws IllegalArgumentException {
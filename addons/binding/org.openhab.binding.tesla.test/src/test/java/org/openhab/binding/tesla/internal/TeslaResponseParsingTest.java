@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.OpenClosedType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Test;
+import org.openhab.binding.tesla.internal.TeslaChannelSelectorProxy.TeslaChannelSelector;
+import org.openhab.binding.tesla.internal.protocol.ChargeState;
+import org.openhab.binding.tesla.internal.protocol.DriveState;
+import org.openhab.binding.tesla.internal.protocol.VehicleState;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests the parsing of recorded Tesla state responses into the state objects and the channel states, the way the
+ * {@link org.openhab.binding.tesla.handler.TeslaHandler} does it.
+ *
+ * @author agent - Initial contribution
+ */
+public class TeslaResponseParsingTest {
+
+    private static final String CHARGE_STATE = "{\"charging_state\":\"Charging\",\"charge_limit_soc\":90,"
+            + "\"charge_limit_soc_std\":90,\"charge_limit_soc_min\":50,\"charge_limit_soc_max\":100,"
+            + "\"charge_to_max_range\":false,\"battery_heater_on\":false,\"not_enough_power_to_heat\":false,"
+            + "\"max_range_charge_counter\":0,\"fast_charger_present\":false,\"fast_charger_type\":\"<invalid>\","
+            + "\"battery_range\":195.38,\"est_battery_range\":160.55,\"ideal_battery_range\":240.18,"
+            + "\"battery_level\":78,\"usable_battery_level\":78,\"battery_current\":null,"
+            + "\"charge_energy_added\":12.46,\"charge_miles_added_rated\":41.5,\"charge_miles_added_ideal\":51.0,"
+            + "\"charger_voltage\":229,\"charger_pilot_current\":32,\"charger_actual_current\":32,"
+            + "\"charger_power\":7,\"time_to_full_charge\":1.5,\"trip_charging\":false,\"charge_rate\":22.4,"
+            + "\"charge_port_door_open\":true,\"motorized_charge_port\":true,"
+            + "\"scheduled_charging_start_time\":null,\"scheduled_charging_pending\":false,"
+            + "\"user_charge_enable_request\":null,\"charge_enable_request\":true,\"eu_vehicle\":false,"
+            + "\"charger_phases\":1,\"charge_port_latch\":\"Engaged\",\"charge_current_request\":32,"
+            + "\"charge_current_request_max\":32,\"managed_charging_active\":false,"
+            + "\"managed_charging_user_canceled\":false,\"managed_charging_start_time\":null}";
+
+    private static final String DRIVE_STATE = "{\"shift_state\":null,\"speed\":null,\"latitude\":51.223456,"
+            + "\"longitude\":4.412345,\"heading\":152,\"gps_as_of\":1492949187}";
+
+    private static final String VEHICLE_STATE = "{\"api_version\":3,\"calendar_supported\":true,\"car_type\":\"s2\","
+            + "\"car_version\":\"2.52.22\",\"center_display_state\":0,\"dark_rims\":false,\"df\":0,\"dr\":0,"
+            + "\"exterior_color\":\"Black\",\"ft\":0,\"has_spoiler\":false,\"locked\":true,"
+            + "\"notifications_supported\":true,\"odometer\":23134.5,\"parsed_calendar_supported\":true,"
+            + "\"perf_config\":\"P2\",\"pf\":1,\"pr\":0,\"rear_seat_heaters\":0,\"remote_start\":false,"
+            + "\"remote_start_supported\":true,\"rhd\":false,\"roof_color\":\"None\",\"rt\":0,\"seat_type\":0,"
+            + "\"sun_roof_installed\":0,\"sun_roof_percent_open\":0,\"sun_roof_state\":\"unknown\","
+            + "\"third_row_seats\":\"None\",\"valet_mode\":false,\"vehicle_name\":\"Model S\","
+            + "\"wheel_type\":\"Base19\"}";
+
+    private final Gson gson = new Gson();
+    private final JsonParser parser = new JsonParser();
+    private final TeslaChannelSelectorProxy proxy = new TeslaChannelSelectorProxy();
+
+    @Test
+    public void stateObjectsAreReadFromParsedTree() {
+        ChargeState chargeState = gson.fromJson(parser.parse(CHARGE_STATE), ChargeState.class);
+        assertEquals("Charging", chargeState.charging_state);
+        assertEquals(78, chargeState.battery_level);
+        assertEquals(90, chargeState.charge_limit_soc);
+        assertEquals(229, chargeState.charger_voltage);
+        assertTrue(chargeState.charge_port_door_open);
+        assertNull(chargeState.scheduled_charging_start_time);
+
+        DriveState driveState = gson.fromJson(parser.parse(DRIVE_STATE), DriveState.class);
+        assertNull(driveState.shift_state);
+        assertNull(driveState.speed);
+        assertEquals(51.223456, driveState.latitude, 0.0000001);
+        assertEquals(152, driveState.heading);
+
+        VehicleState vehicleState = gson.fromJson(parser.parse(VEHICLE_STATE), VehicleState.class);
+        assertEquals("2.52.22", vehicleState.car_version);
+        assertTrue(vehicleState.locked);
+        assertEquals(23134.5, vehicleState.odometer, 0.01);
+    }
+
+    @Test
+    public void unknownRestIdsAreSkipped() {
+        Set<String> unmapped = new HashSet<String>();
+        for (String payload : Arrays.asList(CHARGE_STATE, DRIVE_STATE, VEHICLE_STATE)) {
+            for (Map.Entry<String, JsonElement> entry : parser.parse(payload).getAsJsonObject().entrySet()) {
+                TeslaChannelSelector selector = TeslaChannelSelector.findValueSelectorFromRESTID(entry.getKey());
+                if (selector == null) {
+                    unmapped.add(entry.getKey());
+                } else {
+                    assertEquals(entry.getKey(), selector.toString());
+                }
+            }
+        }
+        assertTrue(unmapped.containsAll(Arrays.asList("car_type", "charge_port_latch", "third_row_seats")));
+        assertFalse(unmapped.contains("battery_level"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRestIdIsRejected() {
+        TeslaChannelSelector.getValueSelectorFromRESTID("charge_port_latch");
+    }
+
+    @Test
+    public void channelIdsAreResolved() {
+        assertEquals(TeslaChannelSelector.BATTERY_LEVEL,
+                TeslaChannelSelector.getValueSelectorFromChannelID("batterylevel"));
+        assertEquals(TeslaChannelSelector.DOOR_LOCK, TeslaChannelSelector.getValueSelectorFromChannelID("doorlock"));
+    }
+
+    @Test
+    public void channelStatesAreReadFromParsedTree() {
+        Map<String, String> properties = new HashMap<String, String>();
+        Map<String, State> states = new HashMap<String, State>();
+        for (String payload : Arrays.asList(CHARGE_STATE, VEHICLE_STATE)) {
+            JsonObject jsonObject = parser.parse(payload).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+                TeslaChannelSelector selector = TeslaChannelSelector.findValueSelectorFromRESTID(entry.getKey());
+                if (selector == null || entry.getValue().isJsonNull()) {
+                    continue;
+                }
+                if (selector.isProperty()) {
+                    properties.put(selector.getChannelID(), entry.getValue().getAsString());
+                } else {
+                    states.put(selector.getChannelID(),
+                            proxy.getState(entry.getValue().getAsString(), selector, properties));
+                }
+            }
+        }
+
+        assertEquals(new DecimalType("78"), states.get("batterylevel"));
+        assertEquals(new PercentType("90"), states.get("chargelimit"));
+        assertEquals(OnOffType.ON, states.get("chargeport"));
+        assertEquals(OnOffType.ON, states.get("doorlock"));
+        assertEquals(OpenClosedType.CLOSED, states.get("driverfrontdoor"));
+        assertEquals(OpenClosedType.OPEN, states.get("passengerfrontdoor"));
+        assertEquals(new DecimalType("23134.5"), states.get("odometer"));
+        assertFalse(states.containsKey("batterycurrent"));
+        assertEquals("2.52.22", properties.get("version"));
+        assertEquals("Black", properties.get("color"));
+    }
+
+    @Test
+    public void distanceUnitsPropertyIsApplied() {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("distanceunits", "km/hr");
+
+        State odometer = proxy.getState("100", TeslaChannelSelector.ODOMETER, properties);
+        assertEquals(160.9344, ((DecimalType) odometer).doubleValue(), 0.0001);
+    }
+}
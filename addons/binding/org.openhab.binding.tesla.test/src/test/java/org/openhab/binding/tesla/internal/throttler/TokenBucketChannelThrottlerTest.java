@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link TokenBucketChannelThrottler}, driven by a {@link TimeProvider} which is set by the test.
+ *
+ * @author agent - Initial contribution
+ */
+public class TokenBucketChannelThrottlerTest {
+
+    private static final String DATA = "data";
+    private static final String COMMAND = "command";
+
+    private final TestTimeProvider timeProvider = new TestTimeProvider();
+    private ScheduledThreadPoolExecutor scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void bucketIsRefilledOverTimeLength() {
+        TokenBucket bucket = new TokenBucket(new Rate(20, 1, TimeUnit.MINUTES));
+
+        assertEquals(10, bucket.getCapacity());
+        assertEquals(6000, bucket.getInterval());
+    }
+
+    @Test
+    public void reserveReturnsDelayOfNextFreeSlot() {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(4, 4, TimeUnit.SECONDS), 10);
+
+        assertEquals(0, throttler.reserve(COMMAND));
+        assertEquals(0, throttler.reserve(COMMAND));
+        assertEquals(2000, throttler.reserve(COMMAND));
+        assertEquals(4000, throttler.reserve(COMMAND));
+
+        timeProvider.time = 3000;
+        assertEquals(3000, throttler.reserve(COMMAND));
+    }
+
+    @Test
+    public void channelRateIsApplied() {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(100, 1, TimeUnit.MINUTES), 10);
+
+        assertEquals(0, throttler.tryAcquire(DATA));
+        assertEquals(10000, throttler.tryAcquire(DATA));
+        assertEquals(10000, throttler.tryAcquire(DATA));
+
+        timeProvider.time = 4000;
+        assertEquals(6000, throttler.tryAcquire(DATA));
+        timeProvider.time = 10000;
+        assertEquals(0, throttler.tryAcquire(DATA));
+    }
+
+    @Test
+    public void priorityChannelGoesAheadOfOtherCalls() {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(4, 4, TimeUnit.SECONDS), 10);
+
+        assertEquals(0, throttler.tryAcquire(null));
+        // the last token is left to the priority channel
+        assertEquals(2000, throttler.tryAcquire(null));
+        assertEquals(0, throttler.reserve(COMMAND));
+
+        // a priority call books a slot, other calls have to wait until after it
+        assertEquals(2000, throttler.reserve(COMMAND));
+        assertEquals(6000, throttler.tryAcquire(null));
+
+        timeProvider.time = 4000;
+        assertEquals(2000, throttler.tryAcquire(null));
+        timeProvider.time = 6000;
+        assertEquals(0, throttler.tryAcquire(null));
+    }
+
+    @Test
+    public void rateIsNotExceededInAnyTimeLength() {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(10, 10, TimeUnit.SECONDS), 10);
+
+        List<Long> callTimes = new ArrayList<Long>();
+        for (int i = 0; i < 50; i++) {
+            callTimes.add(throttler.reserve(COMMAND));
+        }
+        for (int i = 10; i < callTimes.size(); i++) {
+            assertTrue(callTimes.get(i) - callTimes.get(i - 10) >= 10000);
+        }
+    }
+
+    @Test
+    public void submitDoesNotQueuePriorityCalls() throws Exception {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(4, 1, TimeUnit.HOURS), 1);
+
+        Future<?> first = throttler.submit(DATA, new NoOp());
+        first.get(1, TimeUnit.SECONDS);
+
+        Future<?> second = throttler.submit(DATA, new NoOp());
+        assertNull(throttler.submit(DATA, new NoOp()));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        throttler.submit(COMMAND, new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+
+        assertFalse(second.isDone());
+        assertEquals(1, throttler.getQueueLength());
+
+        throttler.clear();
+        assertTrue(second.isCancelled());
+        assertEquals(0, throttler.getQueueLength());
+    }
+
+    @Test
+    public void clearCancelsScheduledPriorityCalls() throws Exception {
+        TokenBucketChannelThrottler throttler = createThrottler(new Rate(2, 1, TimeUnit.HOURS), 1);
+
+        Future<?> first = throttler.submit(COMMAND, new NoOp());
+        first.get(1, TimeUnit.SECONDS);
+
+        Future<?> second = throttler.submit(COMMAND, new NoOp());
+        assertFalse(second.isDone());
+
+        throttler.clear();
+        assertTrue(second.isCancelled());
+    }
+
+    private TokenBucketChannelThrottler createThrottler(Rate rate, int queueLength) {
+        Map<Object, Rate> channels = new HashMap<Object, Rate>();
+        channels.put(DATA, new Rate(2, 10, TimeUnit.SECONDS));
+        return new TokenBucketChannelThrottler(Collections.singletonList(rate), scheduler, channels,
+                Collections.<Object> singleton(COMMAND), timeProvider, queueLength);
+    }
+
+    private static class TestTimeProvider implements TimeProvider {
+        private volatile long time;
+
+        @Override
+        public long getCurrentTimeInMillis() {
+            return time;
+        }
+    }
+
+    private static class NoOp implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
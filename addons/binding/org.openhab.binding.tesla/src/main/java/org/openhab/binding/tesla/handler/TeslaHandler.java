@@ -16,10 +16,12 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -61,8 +63,8 @@ import org.openhab.binding.tesla.internal.protocol.GUIState;
 import org.openhab.binding.tesla.internal.protocol.TokenRequest;
 import org.openhab.binding.tesla.internal.protocol.Vehicle;
 import org.openhab.binding.tesla.internal.protocol.VehicleState;
-import org.openhab.binding.tesla.internal.throttler.QueueChannelThrottler;
 import org.openhab.binding.tesla.internal.throttler.Rate;
+import org.openhab.binding.tesla.internal.throttler.TokenBucketChannelThrottler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,7 +81,9 @@ import com.google.gson.JsonParser;
  */
 public class TeslaHandler extends BaseThingHandler {
 
-    public static final int EVENT_REFRESH_INTERVAL = 200;
+    public static final int EVENT_SUPERVISION_INTERVAL = 1000;
+    public static final int EVENT_READ_TIMEOUT = 3000;
+    public static final int EVENT_STATISTICS_INTERVAL = 60000;
     public static final int FAST_STATUS_REFRESH_INTERVAL = 15000;
     public static final int SLOW_STATUS_REFRESH_INTERVAL = 60000;
     public static final int EVENT_RETRY_INTERVAL = 5000;
@@ -92,9 +96,12 @@ public class TeslaHandler extends BaseThingHandler {
 
     private Logger logger = LoggerFactory.getLogger(TeslaHandler.class);
 
+    // The selectors of the event stream columns, by index of the EventKeys
+    private static final TeslaChannelSelector[] EVENT_SELECTORS = getEventSelectors();
+
     // Vehicle state variables
     protected Vehicle vehicle;
-    protected String vehicleJSON;
+    protected JsonObject vehicleJSONObject;
     protected DriveState driveState;
     protected GUIState guiState;
     protected VehicleState vehicleState;
@@ -116,9 +123,11 @@ public class TeslaHandler extends BaseThingHandler {
     // Threading and Job related variables
     protected ScheduledFuture<?> connectJob;
     protected ScheduledFuture<?> eventJob;
+    protected volatile EventStreamReader eventStreamReader;
+    protected volatile boolean disposed;
     protected ScheduledFuture<?> fastStateJob;
     protected ScheduledFuture<?> slowStateJob;
-    protected QueueChannelThrottler stateThrottler;
+    protected TokenBucketChannelThrottler stateThrottler;
 
     protected long intervalTimestamp = 0;
     protected int intervalErrors = 0;
@@ -143,13 +152,15 @@ public class TeslaHandler extends BaseThingHandler {
 
         lock.lock();
         try {
+            disposed = false;
+
             if (connectJob == null || connectJob.isCancelled()) {
                 connectJob = scheduler.scheduleWithFixedDelay(connectRunnable, 0, CONNECT_RETRY_INTERVAL,
                         TimeUnit.MILLISECONDS);
             }
 
             if (eventJob == null || eventJob.isCancelled()) {
-                eventJob = scheduler.scheduleWithFixedDelay(eventRunnable, 0, EVENT_REFRESH_INTERVAL,
+                eventJob = scheduler.scheduleWithFixedDelay(eventRunnable, 0, EVENT_SUPERVISION_INTERVAL,
                         TimeUnit.MILLISECONDS);
             }
 
@@ -157,10 +168,13 @@ public class TeslaHandler extends BaseThingHandler {
             channels.put(TESLA_DATA_THROTTLE, new Rate(10, 10, TimeUnit.SECONDS));
             channels.put(TESLA_COMMAND_THROTTLE, new Rate(20, 1, TimeUnit.MINUTES));
 
-            Rate firstRate = new Rate(20, 1, TimeUnit.MINUTES);
-            Rate secondRate = new Rate(200, 10, TimeUnit.MINUTES);
-            stateThrottler = new QueueChannelThrottler(firstRate, scheduler, channels);
-            stateThrottler.addRate(secondRate);
+            List<Rate> rates = new ArrayList<Rate>();
+            rates.add(new Rate(20, 1, TimeUnit.MINUTES));
+            rates.add(new Rate(200, 10, TimeUnit.MINUTES));
+
+            // commands go ahead of the queued data requests
+            stateThrottler = new TokenBucketChannelThrottler(rates, scheduler, channels,
+                    Collections.<Object> singleton(TESLA_COMMAND_THROTTLE));
 
             if (fastStateJob == null || fastStateJob.isCancelled()) {
                 fastStateJob = scheduler.scheduleWithFixedDelay(fastStateRunnable, 0, FAST_STATUS_REFRESH_INTERVAL,
@@ -183,6 +197,9 @@ public class TeslaHandler extends BaseThingHandler {
 
         lock.lock();
         try {
+            // an event stream which is established after this point is closed right away
+            disposed = true;
+
             if (fastStateJob != null && !fastStateJob.isCancelled()) {
                 fastStateJob.cancel(true);
                 fastStateJob = null;
@@ -198,6 +215,16 @@ public class TeslaHandler extends BaseThingHandler {
                 eventJob = null;
             }
 
+            if (eventStreamReader != null) {
+                eventStreamReader.close();
+                eventStreamReader = null;
+            }
+
+            if (stateThrottler != null) {
+                stateThrottler.clear();
+                stateThrottler = null;
+            }
+
             if (connectJob != null && !connectJob.isCancelled()) {
                 connectJob.cancel(true);
                 connectJob = null;
@@ -458,44 +485,11 @@ public class TeslaHandler extends BaseThingHandler {
     }
 
     public void parseAndUpdate(String request, String payLoad, String result) {
-
-        JsonParser parser = new JsonParser();
-        JsonObject jsonObject = null;
-
         try {
-            if (request != null && result != null && result != "null") {
-                // first, update state objects
-                switch (request) {
-                    case TESLA_DRIVE_STATE: {
-                        driveState = gson.fromJson(result, DriveState.class);
-                        break;
-                    }
-                    case TESLA_GUI_STATE: {
-                        guiState = gson.fromJson(result, GUIState.class);
-                        break;
-                    }
-                    case TESLA_VEHICLE_STATE: {
-                        vehicleState = gson.fromJson(result, VehicleState.class);
-                        break;
-                    }
-                    case TESLA_CHARGE_STATE: {
-                        chargeState = gson.fromJson(result, ChargeState.class);
-                        if (chargeState.charging_state != null && chargeState.charging_state.equals("Charging")) {
-                            updateState(CHANNEL_CHARGE, OnOffType.ON);
-                        } else {
-                            updateState(CHANNEL_CHARGE, OnOffType.OFF);
-                        }
-
-                        break;
-                    }
-                    case TESLA_CLIMATE_STATE: {
-                        climateState = gson.fromJson(result, ClimateState.class);
-                        break;
-                    }
-                }
-
-                // secondly, reformat the response string to a JSON compliant
-                // object for some specific non-JSON compatible requests
+            if (request != null && result != null && !result.equals("null")) {
+                // reformat the response string to a JSON compliant object for some
+                // specific non-JSON compatible requests, all other responses are parsed once
+                JsonObject jsonObject;
                 switch (request) {
                     case TESLA_MOBILE_ENABLED_STATE: {
                         jsonObject = new JsonObject();
@@ -507,46 +501,84 @@ public class TeslaHandler extends BaseThingHandler {
                         break;
                     }
                 }
+                parseAndUpdate(request, jsonObject);
+            }
+        } catch (Exception p) {
+            logger.error("An exception occurred while parsing data received from the vehicle: '{}'", p.getMessage());
+        }
+    }
+
+    protected void parseAndUpdate(String request, JsonObject jsonObject) {
+        // first, update state objects from the parsed response
+        switch (request) {
+            case TESLA_DRIVE_STATE: {
+                driveState = gson.fromJson(jsonObject, DriveState.class);
+                break;
+            }
+            case TESLA_GUI_STATE: {
+                guiState = gson.fromJson(jsonObject, GUIState.class);
+                break;
+            }
+            case TESLA_VEHICLE_STATE: {
+                vehicleState = gson.fromJson(jsonObject, VehicleState.class);
+                break;
+            }
+            case TESLA_CHARGE_STATE: {
+                chargeState = gson.fromJson(jsonObject, ChargeState.class);
+                if (chargeState.charging_state != null && chargeState.charging_state.equals("Charging")) {
+                    updateState(CHANNEL_CHARGE, OnOffType.ON);
+                } else {
+                    updateState(CHANNEL_CHARGE, OnOffType.OFF);
+                }
+
+                break;
             }
+            case TESLA_CLIMATE_STATE: {
+                climateState = gson.fromJson(jsonObject, ClimateState.class);
+                break;
+            }
+        }
+
+        // deal with responses for "set" commands, which get confirmed
+        // positively, or negatively, in which case a reason for failure
+        // is provided
+        if (jsonObject.get("reason") != null && jsonObject.get("reason").getAsString() != null) {
+            boolean requestResult = jsonObject.get("result").getAsBoolean();
+            logger.debug("The request ({}) execution was {}, and reported '{}'", new Object[] { request,
+                    requestResult ? "successful" : "not successful", jsonObject.get("reason").getAsString() });
+            return;
+        }
 
-            // process the result
-            if (jsonObject != null && result != null && !result.equals("null")) {
-                // deal with responses for "set" commands, which get confirmed
-                // positively, or negatively, in which case a reason for failure
-                // is provided
-                if (jsonObject.get("reason") != null && jsonObject.get("reason").getAsString() != null) {
-                    boolean requestResult = jsonObject.get("result").getAsBoolean();
-                    logger.debug("The request ({}) execution was {}, and reported '{}'", new Object[] { request,
-                            requestResult ? "successful" : "not successful", jsonObject.get("reason").getAsString() });
+        // the properties are copied once, and updated once if any of them changed
+        Map<String, String> properties = editProperties();
+        boolean propertiesChanged = false;
+        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+            TeslaChannelSelector selector = TeslaChannelSelector.findValueSelectorFromRESTID(entry.getKey());
+            if (selector == null) {
+                continue;
+            }
+            try {
+                if (!selector.isProperty()) {
+                    if (!entry.getValue().isJsonNull()) {
+                        updateState(selector.getChannelID(), teslaChannelSelectorProxy
+                                .getState(entry.getValue().getAsString(), selector, properties));
+                    } else {
+                        updateState(selector.getChannelID(), UnDefType.UNDEF);
+                    }
                 } else {
-                    Set<Map.Entry<String, JsonElement>> entrySet = jsonObject.entrySet();
-                    for (Map.Entry<String, JsonElement> entry : entrySet) {
-                        try {
-                            TeslaChannelSelector selector = TeslaChannelSelector
-                                    .getValueSelectorFromRESTID(entry.getKey());
-                            if (!selector.isProperty()) {
-                                if (!entry.getValue().isJsonNull()) {
-                                    updateState(selector.getChannelID(), teslaChannelSelectorProxy
-                                            .getState(entry.getValue().getAsString(), selector, editProperties()));
-                                } else {
-                                    updateState(selector.getChannelID(), UnDefType.UNDEF);
-                                }
-                            } else {
-                                if (!entry.getValue().isJsonNull()) {
-                                    Map<String, String> properties = editProperties();
-                                    properties.put(selector.getChannelID(), entry.getValue().getAsString());
-                                    updateProperties(properties);
-                                }
-                            }
-                        } catch (Exception e) {
-                            logger.trace("Unable to handle the variable/value pair '{}':'{}'", entry.getKey(),
-                                    entry.getValue());
+                    if (!entry.getValue().isJsonNull()) {
+                        String value = entry.getValue().getAsString();
+                        if (!value.equals(properties.put(selector.getChannelID(), value))) {
+                            propertiesChanged = true;
                         }
                     }
                 }
+            } catch (Exception e) {
+                logger.trace("Unable to handle the variable/value pair '{}':'{}'", entry.getKey(), entry.getValue());
             }
-        } catch (Exception p) {
-            logger.error("An exception occurred while parsing data received from the vehicle: '{}'", p.getMessage());
+        }
+        if (propertiesChanged) {
+            updateProperties(properties);
         }
     }
 
@@ -659,8 +691,8 @@ public class TeslaHandler extends BaseThingHandler {
         for (int i = 0; i < vehicleArray.length; i++) {
             logger.debug("Querying the vehicle : VIN : {}", vehicleArray[i].vin);
             if (vehicleArray[i].vin.equals(getConfig().get(VIN))) {
-                vehicleJSON = gson.toJson(vehicleArray[i]);
-                parseAndUpdate("queryVehicle", null, vehicleJSON);
+                vehicleJSONObject = gson.toJsonTree(vehicleArray[i]).getAsJsonObject();
+                parseAndUpdate("queryVehicle", vehicleJSONObject);
                 return vehicleArray[i];
             }
         }
@@ -730,7 +762,9 @@ public class TeslaHandler extends BaseThingHandler {
                     requestData(TESLA_CLIMATE_STATE);
                     requestData(TESLA_GUI_STATE);
                     queryVehicle(TESLA_MOBILE_ENABLED_STATE);
-                    parseAndUpdate("queryVehicle", null, vehicleJSON);
+                    if (vehicleJSONObject != null) {
+                        parseAndUpdate("queryVehicle", vehicleJSONObject);
+                    }
                 } else {
                     if (vehicle != null) {
                         sendCommand(TESLA_COMMAND_WAKE_UP);
@@ -793,50 +827,64 @@ public class TeslaHandler extends BaseThingHandler {
         }
     };
 
+    private static TeslaChannelSelector[] getEventSelectors() {
+        EventKeys[] keys = EventKeys.values();
+        TeslaChannelSelector[] selectors = new TeslaChannelSelector[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            // null if the column is not mapped to a channel
+            selectors[i] = TeslaChannelSelector.findValueSelectorFromRESTID(keys[i].toString());
+        }
+        return selectors;
+    }
+
+    /*
+     * Supervises the event stream: (re-)establishes the stream and closes it when no events arrive anymore.
+     * The events themselves are read by the EventStreamReader as soon as they arrive.
+     */
     protected Runnable eventRunnable = new Runnable() {
 
-        boolean isEstablished = false;
-        long emptyLineCounter = 0;
-        long lastEventSystemTime = 0;
         long lastEventStreamEstablishedTime = 0;
-        String lastEventTimeStamp = "";
-        Response eventResponse;
-        BufferedReader eventBufferedReader;
-        InputStreamReader eventInputStreamReader;
+        long lastEstablishAttemptTime = 0;
 
         protected void establishEventStream() {
+            lastEstablishAttemptTime = System.currentTimeMillis();
             try {
-                eventBufferedReader = null;
-
-                if (eventResponse != null) {
-                    eventResponse.close();
+                if (eventStreamReader != null) {
+                    eventStreamReader.close();
+                    eventStreamReader = null;
                 }
 
                 eventClient = ClientBuilder.newClient().property(ClientProperties.CONNECT_TIMEOUT, 3000)
-                        .property(ClientProperties.READ_TIMEOUT, 1000)
+                        .property(ClientProperties.READ_TIMEOUT, EVENT_READ_TIMEOUT)
                         .register(new Authenticator((String) getConfig().get(USERNAME), vehicle.tokens[0]));
                 eventTarget = eventClient.target(TESLA_EVENT_URI).path(vehicle.vehicle_id + "/").queryParam("values",
                         StringUtils.join(EventKeys.values(), ',', 1, EventKeys.values().length));
-                eventResponse = eventTarget.request(MediaType.TEXT_PLAIN_TYPE).get();
+                Response eventResponse = eventTarget.request(MediaType.TEXT_PLAIN_TYPE).get();
 
                 logger.debug("Event Stream : Establishing the event stream : Response : {}:{}",
                         eventResponse.getStatus(), eventResponse.getStatusInfo());
 
                 if (eventResponse.getStatus() == 200) {
-                    InputStream dummy = (InputStream) eventResponse.getEntity();
-                    eventInputStreamReader = new InputStreamReader(dummy);
-                    eventBufferedReader = new BufferedReader(eventInputStreamReader);
-                    isEstablished = true;
-                    lastEventStreamEstablishedTime = System.currentTimeMillis();
-                    lastEventSystemTime = lastEventStreamEstablishedTime;
+                    lock.lock();
+                    try {
+                        if (disposed) {
+                            logger.debug("Event Stream : The handler has been disposed while establishing the stream");
+                            eventResponse.close();
+                            return;
+                        }
+                        lastEventStreamEstablishedTime = System.currentTimeMillis();
+                        eventStreamReader = new EventStreamReader(eventResponse);
+                        eventStreamReader.start();
+                    } finally {
+                        lock.unlock();
+                    }
                 } else {
-                    isEstablished = false;
+                    eventResponse.close();
                 }
             } catch (Exception e) {
                 logger.error(
                         "Event Stream : An exception occurred while establishing the event stream for the vehicle: '{}'",
                         e.getMessage());
-                isEstablished = false;
             }
         }
 
@@ -845,8 +893,13 @@ public class TeslaHandler extends BaseThingHandler {
             try {
                 if (getThing().getStatus() == ThingStatus.ONLINE) {
                     if (isAwake()) {
-                        if (!isEstablished
-                                && (System.currentTimeMillis() - lastEventSystemTime > EVENT_RETRY_INTERVAL)) {
+                        EventStreamReader reader = eventStreamReader;
+                        boolean isEstablished = reader != null && reader.isEstablished();
+                        long lastEventSystemTime = reader != null ? reader.getLastEventSystemTime()
+                                : lastEstablishAttemptTime;
+
+                        if (!isEstablished && (System.currentTimeMillis() - lastEventSystemTime > EVENT_RETRY_INTERVAL)
+                                && (System.currentTimeMillis() - lastEstablishAttemptTime > EVENT_RETRY_INTERVAL)) {
                             establishEventStream();
                         }
 
@@ -857,73 +910,17 @@ public class TeslaHandler extends BaseThingHandler {
                             updateStatus(ThingStatus.OFFLINE);
                         }
 
-                        if (isEstablished && lastEventSystemTime != 0 && !(isInMotion()) && (System.currentTimeMillis()
+                        if (isEstablished && !(isInMotion()) && (System.currentTimeMillis()
                                 - lastEventSystemTime > EVENT_MISSING_WHILE_STATIONARY_INTERVAL)) {
                             logger.debug(
                                     "Event Stream : Mmh... we are not getting any events anymore while being stationary");
-                            isEstablished = false;
+                            reader.close();
                         }
 
-                        if (isEstablished && lastEventSystemTime != 0 && isInMotion() && (System.currentTimeMillis()
+                        if (isEstablished && isInMotion() && (System.currentTimeMillis()
                                 - lastEventSystemTime > EVENT_MISSING_WHILE_MOVING_INTERVAL)) {
                             logger.debug("Event Stream : Mmh... we are not getting any events anymore while moving");
-                            isEstablished = false;
-                        }
-
-                        try {
-                            if (isEstablished) {
-                                String line = null;
-                                try {
-                                    line = eventBufferedReader.readLine();
-                                } catch (SocketTimeoutException s) {
-                                    // Nothing to do here - we move on
-                                } catch (Exception e) {
-                                    logger.error("An exception occurred while reading events : '{}'", e.getMessage());
-                                    isEstablished = false;
-                                }
-                                if (line != null) {
-                                    emptyLineCounter = 0;
-                                    lastEventSystemTime = System.currentTimeMillis();
-                                    logger.debug("Event Stream : Received an event: '{}'", line);
-                                    String vals[] = line.split(",");
-                                    if (!vals[0].equals(lastEventTimeStamp)) {
-                                        lastEventTimeStamp = vals[0];
-                                        for (int i = 0; i < EventKeys.values().length; i++) {
-                                            try {
-                                                TeslaChannelSelector selector = TeslaChannelSelector
-                                                        .getValueSelectorFromRESTID((EventKeys.values()[i]).toString());
-                                                if (!selector.isProperty()) {
-                                                    State newState = teslaChannelSelectorProxy.getState(vals[i],
-                                                            selector, editProperties());
-                                                    if (newState != null && !vals[i].equals("")) {
-                                                        updateState(selector.getChannelID(), newState);
-                                                    } else {
-                                                        updateState(selector.getChannelID(), UnDefType.UNDEF);
-
-                                                    }
-                                                } else {
-                                                    Map<String, String> properties = editProperties();
-                                                    properties.put(selector.getChannelID(),
-                                                            (selector.getState(vals[i])).toString());
-                                                    updateProperties(properties);
-                                                }
-                                            } catch (Exception e) {
-                                                logger.warn(
-                                                        "Event Stream : An exception occurred while processing an event received from the vehicle; '{}'",
-                                                        e.getMessage());
-                                            }
-                                        }
-                                    }
-                                } else {
-                                    emptyLineCounter++;
-                                    logger.trace("Event Stream : Empty Line # {}", emptyLineCounter);
-                                }
-                            }
-                        } catch (Exception e) {
-                            logger.error(
-                                    "Event Stream : An exception occurred while reading event inputs from vehicle '{}' : {}",
-                                    vehicle.vin, e.getMessage());
-                            isEstablished = false;
+                            reader.close();
                         }
                     } else {
                         logger.debug("Event stream : The vehicle is not awake");
@@ -936,16 +933,147 @@ public class TeslaHandler extends BaseThingHandler {
                             vehicle = queryVehicle();
                         }
                     }
-                } else {
-                    isEstablished = false;
+                } else if (eventStreamReader != null) {
+                    eventStreamReader.close();
                 }
             } catch (Exception t) {
                 logger.error("Event Stream : An exception ocurred in the event stream thread: '{}'", t.getMessage());
-                isEstablished = false;
             }
         }
     };
 
+    /*
+     * Reads the event stream on a dedicated thread, so events are processed as soon as they arrive. The reader
+     * stops when the stream ends, fails or is closed.
+     */
+    protected class EventStreamReader implements Runnable {
+
+        private final Response eventResponse;
+        private final Thread thread;
+
+        private volatile boolean isEstablished = true;
+        private volatile long lastEventSystemTime = System.currentTimeMillis();
+        private String lastEventTimeStamp = "";
+
+        private long statisticsStart = System.currentTimeMillis();
+        private int statisticsEvents;
+        private long statisticsLag;
+
+        public EventStreamReader(Response eventResponse) {
+            this.eventResponse = eventResponse;
+            thread = new Thread(this, "ESH-tesla-events-" + getThing().getUID().getId());
+            thread.setDaemon(true);
+        }
+
+        public void start() {
+            thread.start();
+        }
+
+        public boolean isEstablished() {
+            return isEstablished;
+        }
+
+        public long getLastEventSystemTime() {
+            return lastEventSystemTime;
+        }
+
+        public void close() {
+            isEstablished = false;
+            try {
+                // closing the response unblocks the reading thread
+                eventResponse.close();
+            } catch (Exception e) {
+                logger.trace("Event Stream : An exception occurred while closing the event stream: '{}'",
+                        e.getMessage());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                BufferedReader eventBufferedReader = new BufferedReader(
+                        new InputStreamReader((InputStream) eventResponse.getEntity()));
+                while (isEstablished) {
+                    String line;
+                    try {
+                        line = eventBufferedReader.readLine();
+                    } catch (SocketTimeoutException s) {
+                        // Nothing to do here - the supervisor decides if events are missing
+                        continue;
+                    }
+                    if (line == null) {
+                        logger.debug("Event Stream : The event stream has ended");
+                        break;
+                    }
+                    lastEventSystemTime = System.currentTimeMillis();
+                    logger.debug("Event Stream : Received an event: '{}'", line);
+                    processEvent(line);
+                }
+            } catch (Exception e) {
+                if (isEstablished) {
+                    logger.error("An exception occurred while reading events : '{}'", e.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        private void processEvent(String line) {
+            String vals[] = line.split(",", -1);
+            if (vals[0].equals(lastEventTimeStamp)) {
+                return;
+            }
+            lastEventTimeStamp = vals[0];
+            updateStatistics(vals[0]);
+
+            Map<String, String> properties = editProperties();
+            boolean propertiesChanged = false;
+            for (int i = 0; i < EVENT_SELECTORS.length && i < vals.length; i++) {
+                TeslaChannelSelector selector = EVENT_SELECTORS[i];
+                if (selector == null) {
+                    continue;
+                }
+                try {
+                    if (!selector.isProperty()) {
+                        State newState = teslaChannelSelectorProxy.getState(vals[i], selector, properties);
+                        if (newState != null && !vals[i].equals("")) {
+                            updateState(selector.getChannelID(), newState);
+                        } else {
+                            updateState(selector.getChannelID(), UnDefType.UNDEF);
+                        }
+                    } else {
+                        properties.put(selector.getChannelID(), (selector.getState(vals[i])).toString());
+                        propertiesChanged = true;
+                    }
+                } catch (Exception e) {
+                    logger.warn(
+                            "Event Stream : An exception occurred while processing an event received from the vehicle; '{}'",
+                            e.getMessage());
+                }
+            }
+            if (propertiesChanged) {
+                updateProperties(properties);
+            }
+        }
+
+        private void updateStatistics(String timeStamp) {
+            long now = System.currentTimeMillis();
+            statisticsEvents++;
+            try {
+                // the first column holds the time the vehicle recorded the event
+                statisticsLag = now - Long.parseLong(timeStamp);
+            } catch (NumberFormatException e) {
+                // no lag known for this event
+            }
+            if (now - statisticsStart >= EVENT_STATISTICS_INTERVAL) {
+                logger.debug("Event Stream : {} events/s, lag of the last event {} ms",
+                        String.format("%.2f", statisticsEvents * 1000.0 / (now - statisticsStart)), statisticsLag);
+                statisticsStart = now;
+                statisticsEvents = 0;
+            }
+        }
+    }
+
     protected class Request implements Runnable {
 
         private String request;
@@ -12,6 +12,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.smarthome.core.library.types.DateTimeType;
@@ -988,10 +989,9 @@ public class TeslaChannelSelectorProxy {
         public static TeslaChannelSelector getValueSelectorFromChannelID(String valueSelectorText)
                 throws IllegalArgumentException {
 
-            for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-                if (c.channelID.equals(valueSelectorText)) {
-                    return c;
-                }
+            TeslaChannelSelector c = Lookup.BY_CHANNEL_ID.get(valueSelectorText);
+            if (c != null) {
+                return c;
             }
 
             throw new IllegalArgumentException("Not valid value selector");
@@ -1000,14 +1000,40 @@ public class TeslaChannelSelectorProxy {
         public static TeslaChannelSelector getValueSelectorFromRESTID(String valueSelectorText)
                 throws IllegalArgumentException {
 
-            for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
-                if (c.RESTID != null && c.RESTID.equals(valueSelectorText)) {
-                    return c;
-                }
+            TeslaChannelSelector c = findValueSelectorFromRESTID(valueSelectorText);
+            if (c != null) {
+                return c;
             }
 
             throw new IllegalArgumentException("Not valid value selector");
         }
+
+        /**
+         * Returns the selector of the REST id, or null if the REST id is not mapped to a channel
+         */
+        public static TeslaChannelSelector findValueSelectorFromRESTID(String valueSelectorText) {
+            return Lookup.BY_REST_ID.get(valueSelectorText);
+        }
+
+        /*
+         * The selectors by REST id and channel id. Where several selectors share an id, the first
+         * declared one is used.
+         */
+        private static class Lookup {
+            private static final Map<String, TeslaChannelSelector> BY_REST_ID = new HashMap<>();
+            private static final Map<String, TeslaChannelSelector> BY_CHANNEL_ID = new HashMap<>();
+
+            static {
+                for (TeslaChannelSelector c : TeslaChannelSelector.values()) {
+                    if (c.RESTID != null && !BY_REST_ID.containsKey(c.RESTID)) {
+                        BY_REST_ID.put(c.RESTID, c);
+                    }
+                    if (!BY_CHANNEL_ID.containsKey(c.channelID)) {
+                        BY_CHANNEL_ID.put(c.channelID, c);
+                    }
+                }
+            }
+        }
     }
 
     public String latitude = "0";
@@ -37,6 +37,10 @@ public final class Rate {
 		return timeUnit.toMillis(timeLength);
 	}
 
+	int getNumberCalls() {
+		return numberCalls;
+	}
+
 	void addCall(long callTime) {
 		callHistory.addLast(callTime);
 	}
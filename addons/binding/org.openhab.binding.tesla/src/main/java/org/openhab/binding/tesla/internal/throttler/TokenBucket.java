@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link TokenBucket} is a lock free token bucket. It only keeps the
+ * theoretical arrival time of the next call (generic cell rate algorithm), a
+ * call is admitted if it is not earlier than this time minus the burst of the
+ * bucket
+ *
+ * A {@link Rate} of n calls per time length is converted into a bucket that
+ * holds half of the calls and is refilled with the other half over the time
+ * length, so that the bucket never admits more than n calls in any time length
+ *
+ * @author agent - Initial contribution
+ */
+final class TokenBucket {
+
+	private final int capacity;
+	private final long interval;
+	private final long tolerance;
+	private final AtomicLong arrivalTime = new AtomicLong();
+
+	TokenBucket(Rate rate) {
+		this(Math.max(1, rate.getNumberCalls() / 2), rate.timeInMillis(), Math
+				.max(1, rate.getNumberCalls() - rate.getNumberCalls() / 2));
+	}
+
+	private TokenBucket(int capacity, long timeInMillis, int refills) {
+		this(capacity, (timeInMillis + refills - 1) / refills);
+	}
+
+	TokenBucket(int capacity, long interval) {
+		this.capacity = capacity;
+		this.interval = interval;
+		this.tolerance = (capacity - 1) * interval;
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Returns the earliest time, not before the given time, at which a call is
+	 * admitted and leaves the given number of tokens in the bucket
+	 */
+	long callTime(long time, int headroom) {
+		return Math.max(time, arrivalTime.get() - tolerance + reserve(headroom));
+	}
+
+	/**
+	 * Takes a token for a call at the given time, if the call is admitted and
+	 * leaves the given number of tokens in the bucket
+	 */
+	boolean tryAcquire(long time, int headroom) {
+		long threshold = time + tolerance - reserve(headroom);
+		while (true) {
+			long current = arrivalTime.get();
+			if (current > threshold) {
+				return false;
+			}
+			if (arrivalTime.compareAndSet(current, Math.max(current, time)
+					+ interval)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns a token taken by {@link #tryAcquire(long, int)}
+	 */
+	void release() {
+		arrivalTime.addAndGet(-interval);
+	}
+
+	private long reserve(int headroom) {
+		return Math.min(headroom, capacity - 1) * interval;
+	}
+}
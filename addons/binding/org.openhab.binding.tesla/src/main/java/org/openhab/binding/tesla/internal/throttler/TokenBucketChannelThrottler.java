@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tesla.internal.throttler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link TokenBucketChannelThrottler} implements a throttler that maintains
+ * multiple execution rates as lock free token buckets, and never blocks the
+ * caller
+ *
+ * Calls on a priority channel take the next free slot of the buckets right
+ * away and are scheduled with the resulting delay. All other calls are kept in
+ * order in a queue, and only take a slot that is free at the time they are
+ * dispatched, leaving one token of each overall rate to priority calls. Thus
+ * priority calls are never queued behind other calls
+ *
+ * @author agent - Initial contribution
+ */
+public final class TokenBucketChannelThrottler implements ChannelThrottler {
+
+	private Logger logger = LoggerFactory
+			.getLogger(TokenBucketChannelThrottler.class);
+
+	private final static int MAX_QUEUE_LENGTH = 150;
+	private final static int PRIORITY_HEADROOM = 1;
+
+	private final TokenBucket[] buckets;
+	private final Map<Object, TokenBucket> channels = new HashMap<Object, TokenBucket>();
+	private final Set<Object> priorityChannels = new HashSet<Object>();
+	private final ScheduledExecutorService scheduler;
+	private final TimeProvider timeProvider;
+	private final int queueLength;
+
+	private final Queue<ThrottledTask> tasks = new ConcurrentLinkedQueue<ThrottledTask>();
+	private final AtomicInteger queuedTasks = new AtomicInteger();
+	private final AtomicBoolean dispatching = new AtomicBoolean();
+	private final Set<ScheduledTask> scheduledTasks = Collections
+			.newSetFromMap(new ConcurrentHashMap<ScheduledTask, Boolean>());
+
+	private final Runnable dispatchTask = new Runnable() {
+		@Override
+		public void run() {
+			dispatch();
+		}
+	};
+
+	public TokenBucketChannelThrottler(List<Rate> rates,
+			ScheduledExecutorService scheduler, Map<Object, Rate> channels,
+			Set<Object> priorityChannels) {
+		this(rates, scheduler, channels, priorityChannels,
+				TimeProvider.SYSTEM_PROVIDER, MAX_QUEUE_LENGTH);
+	}
+
+	public TokenBucketChannelThrottler(List<Rate> rates,
+			ScheduledExecutorService scheduler, Map<Object, Rate> channels,
+			Set<Object> priorityChannels, TimeProvider timeProvider,
+			int queueLength) {
+		this.buckets = new TokenBucket[rates.size()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new TokenBucket(rates.get(i));
+		}
+		for (Map.Entry<Object, Rate> channel : channels.entrySet()) {
+			this.channels.put(channel.getKey(),
+					new TokenBucket(channel.getValue()));
+		}
+		this.priorityChannels.addAll(priorityChannels);
+		this.scheduler = scheduler;
+		this.timeProvider = timeProvider;
+		this.queueLength = queueLength;
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		return submit(null, task);
+	}
+
+	@Override
+	public Future<?> submit(Object channelKey, Runnable task) {
+		if (priorityChannels.contains(channelKey)) {
+			ScheduledTask runTask = new ScheduledTask(task);
+			scheduledTasks.add(runTask);
+			runTask.future = scheduler.schedule(runTask, reserve(channelKey),
+					TimeUnit.MILLISECONDS);
+			return runTask;
+		}
+
+		if (queuedTasks.incrementAndGet() > queueLength) {
+			queuedTasks.decrementAndGet();
+			logger.warn(
+					"The throttler can not take the task '{}' at this point in time",
+					task.toString());
+			return null;
+		}
+
+		ThrottledTask runTask = new ThrottledTask(channels.get(channelKey),
+				task);
+		tasks.offer(runTask);
+		if (dispatching.compareAndSet(false, true)) {
+			scheduler.execute(dispatchTask);
+		}
+		return runTask;
+	}
+
+	/**
+	 * Takes the next free slot for a call on the given channel, and returns the
+	 * time in milliseconds the call has to wait for it
+	 */
+	public long reserve(Object channelKey) {
+		return acquire(channels.get(channelKey), 0, true);
+	}
+
+	/**
+	 * Takes a slot that is free now for a call on the given channel, leaving
+	 * headroom to priority calls. Returns 0 if a slot was taken, or the time in
+	 * milliseconds after which the call can be tried again
+	 */
+	public long tryAcquire(Object channelKey) {
+		return acquire(channels.get(channelKey), PRIORITY_HEADROOM, false);
+	}
+
+	/**
+	 * Returns the number of calls waiting in the queue
+	 */
+	public int getQueueLength() {
+		return queuedTasks.get();
+	}
+
+	/**
+	 * Cancels all calls waiting in the queue, and all priority calls that are
+	 * scheduled but not yet started
+	 */
+	public void clear() {
+		ThrottledTask task;
+		while ((task = tasks.poll()) != null) {
+			queuedTasks.decrementAndGet();
+			task.cancel(false);
+		}
+		for (ScheduledTask scheduledTask : scheduledTasks) {
+			scheduledTask.cancel(false);
+		}
+	}
+
+	private long acquire(TokenBucket channel, int headroom, boolean book) {
+		while (true) {
+			long now = timeProvider.getCurrentTimeInMillis();
+			long callTime = channel != null ? channel.callTime(now, 0) : now;
+			for (TokenBucket bucket : buckets) {
+				callTime = Math.max(callTime,
+						bucket.callTime(callTime, headroom));
+			}
+			if (callTime > now && !book) {
+				return callTime - now;
+			}
+			if (acquireAll(channel, callTime, headroom)) {
+				return callTime - now;
+			}
+		}
+	}
+
+	private boolean acquireAll(TokenBucket channel, long callTime,
+			int headroom) {
+		if (channel != null && !channel.tryAcquire(callTime, 0)) {
+			return false;
+		}
+		for (int i = 0; i < buckets.length; i++) {
+			if (!buckets[i].tryAcquire(callTime, headroom)) {
+				// another call took the slot in the meantime
+				for (int j = 0; j < i; j++) {
+					buckets[j].release();
+				}
+				if (channel != null) {
+					channel.release();
+				}
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void dispatch() {
+		while (true) {
+			ThrottledTask task = tasks.peek();
+			if (task == null) {
+				dispatching.set(false);
+				// pick up a task that was queued while the flag was still set
+				if (tasks.isEmpty() || !dispatching.compareAndSet(false, true)) {
+					return;
+				}
+				continue;
+			}
+			if (!task.isCancelled()) {
+				long delay = acquire(task.channel, PRIORITY_HEADROOM, false);
+				if (delay > 0) {
+					scheduler.schedule(dispatchTask, delay,
+							TimeUnit.MILLISECONDS);
+					return;
+				}
+				scheduler.execute(task);
+			}
+			if (tasks.remove(task)) {
+				queuedTasks.decrementAndGet();
+			}
+		}
+	}
+
+	private static class ThrottledTask extends FutureTask<Object> {
+
+		private final TokenBucket channel;
+
+		private ThrottledTask(TokenBucket channel, Runnable task) {
+			super(task, null);
+			this.channel = channel;
+		}
+	}
+
+	/**
+	 * A priority call, which removes itself from the scheduled calls once it is
+	 * done, and also cancels its scheduled execution when cancelled
+	 */
+	private class ScheduledTask extends FutureTask<Object> {
+
+		private volatile Future<?> future;
+
+		private ScheduledTask(Runnable task) {
+			super(task, null);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			Future<?> scheduled = future;
+			if (scheduled != null) {
+				scheduled.cancel(false);
+			}
+			return super.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		protected void done() {
+			scheduledTasks.remove(this);
+		}
+	}
+}
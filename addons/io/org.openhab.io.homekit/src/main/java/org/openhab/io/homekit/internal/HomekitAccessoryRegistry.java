@@ -8,6 +8,7 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -16,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.smarthome.core.storage.Storage;
 import org.openhab.io.homekit.internal.accessories.GroupedAccessory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,11 +29,21 @@ import com.beowulfe.hap.HomekitRoot;
  * Stores the created HomekitAccessories. GroupedAccessories are also held here
  * in a pre-created pending state until all required characteristics are found.
  *
+ * The configuration index advertised by the bridge is increased once for each set of
+ * changes which added or removed accessories, it is kept in the storage so that it keeps
+ * increasing across restarts.
+ *
  * @author Andy Lintner
  */
 class HomekitAccessoryRegistry {
 
+    private static final String CONFIGURATION_INDEX_KEY = "configurationIndex";
+    private static final int MAX_CONFIGURATION_INDEX = 65535;
+
     private HomekitRoot bridge;
+    private Storage<String> storage;
+    private int configurationIndex = 1;
+    private boolean accessoriesChanged;
     private final List<HomekitAccessory> createdAccessories = new LinkedList<>();
     private final Set<Integer> createdIds = new HashSet<>();
     private final Map<String, GroupedAccessory> pendingGroupedAccessories = new HashMap<>();
@@ -47,6 +59,7 @@ class HomekitAccessoryRegistry {
                 logger.debug("Removed accessory " + accessory.getId());
                 bridge.removeAccessory(accessory);
                 i.remove();
+                accessoriesChanged = true;
             }
         }
     }
@@ -54,13 +67,52 @@ class HomekitAccessoryRegistry {
     public synchronized void clear() {
         while (!createdAccessories.isEmpty()) {
             bridge.removeAccessory(createdAccessories.remove(0));
+            accessoriesChanged = true;
         }
         createdIds.clear();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
         this.bridge = bridge;
-        createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
+        if (bridge != null) {
+            createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
+            advertiseConfigurationIndex();
+        }
+    }
+
+    public synchronized void setStorage(Storage<String> storage) {
+        this.storage = storage;
+        String storedIndex = storage.get(CONFIGURATION_INDEX_KEY);
+        if (storedIndex != null) {
+            configurationIndex = Integer.parseInt(storedIndex);
+        }
+    }
+
+    /**
+     * Increases the configuration index if accessories have been added or removed since the last
+     * call, so that the Homekit clients reload the accessories.
+     */
+    public synchronized void configurationChanged() {
+        if (!accessoriesChanged) {
+            return;
+        }
+        accessoriesChanged = false;
+        configurationIndex = configurationIndex >= MAX_CONFIGURATION_INDEX ? 1 : configurationIndex + 1;
+        if (storage != null) {
+            storage.put(CONFIGURATION_INDEX_KEY, String.valueOf(configurationIndex));
+        }
+        advertiseConfigurationIndex();
+    }
+
+    private void advertiseConfigurationIndex() {
+        if (bridge != null) {
+            try {
+                bridge.setConfigurationIndex(configurationIndex);
+                logger.debug("Advertised configuration index " + configurationIndex);
+            } catch (IOException e) {
+                logger.warn("Could not advertise configuration index: " + e.getMessage(), e);
+            }
+        }
     }
 
     public synchronized void addRootDevice(HomekitAccessory accessory) {
@@ -101,6 +153,7 @@ class HomekitAccessoryRegistry {
     private void doAddDevice(HomekitAccessory accessory) {
         createdAccessories.add(accessory);
         createdIds.add(accessory.getId());
+        accessoriesChanged = true;
         if (bridge != null) {
             bridge.addAccessory(accessory);
         }
@@ -8,9 +8,17 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.StateChangeListener;
@@ -26,13 +34,35 @@ import com.beowulfe.hap.HomekitCharacteristicChangeCallback;
  * Homekit library takes care of insuring only a single subscription exists for
  * each accessory.
  *
+ * Changes are coalesced: the first change of a characteristic schedules a notification
+ * after the coalesce window, further changes within the window are merged into it. All
+ * notifications due are sent together, Homekit clients read the latest state then.
+ *
  * @author Andy Lintner
  */
 public class HomekitAccessoryUpdater {
 
+    private static final String THREADPOOL_HOMEKIT = "homekit";
+
     private Logger logger = LoggerFactory.getLogger(HomekitAccessoryUpdater.class);
     private final ConcurrentMap<ItemKey, Subscription> subscriptionsByName = new ConcurrentHashMap<>();
 
+    private volatile long coalesceWindow;
+    private final Set<Subscription> pendingNotifications = new LinkedHashSet<>();
+    private ScheduledFuture<?> flushJob;
+
+    private final AtomicLong notifiedCount = new AtomicLong();
+    private final AtomicLong mergedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Sets the time in milliseconds changes of a characteristic are collected before the
+     * Homekit clients are notified, 0 notifies every change immediately.
+     */
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
     public void subscribe(GenericItem item, HomekitCharacteristicChangeCallback callback) {
         subscribe(item, null, callback);
     }
@@ -50,7 +80,7 @@ public class HomekitAccessoryUpdater {
                 logger.error("Received duplicate subscription on " + item.getName());
                 unsubscribe(item, key);
             }
-            Subscription subscription = (changedItem, oldState, newState) -> callback.changed();
+            Subscription subscription = new Subscription(k, callback);
             item.addStateChangeListener(subscription);
             return subscription;
         });
@@ -70,14 +100,106 @@ public class HomekitAccessoryUpdater {
         });
     }
 
-    @FunctionalInterface
-    private static interface Subscription extends StateChangeListener {
+    /**
+     * Cancels the scheduled notification and drops all pending changes
+     */
+    public void stop() {
+        synchronized (pendingNotifications) {
+            if (flushJob != null) {
+                flushJob.cancel(false);
+                flushJob = null;
+            }
+            pendingNotifications.clear();
+        }
+    }
+
+    /**
+     * Returns the number of notifications sent to the Homekit clients
+     */
+    public long getNotifiedCount() {
+        return notifiedCount.get();
+    }
+
+    /**
+     * Returns the number of changes merged into a pending notification
+     */
+    public long getMergedCount() {
+        return mergedCount.get();
+    }
+
+    /**
+     * Returns the number of pending notifications dropped, because the characteristic has been
+     * unsubscribed in the meantime
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "notified: " + notifiedCount.get() + ", merged: " + mergedCount.get() + ", dropped: "
+                + droppedCount.get();
+    }
+
+    private void changed(Subscription subscription) {
+        long window = coalesceWindow;
+        if (window <= 0) {
+            notify(subscription);
+            return;
+        }
+        synchronized (pendingNotifications) {
+            if (!pendingNotifications.add(subscription)) {
+                mergedCount.incrementAndGet();
+            }
+            if (flushJob == null) {
+                flushJob = ThreadPoolManager.getScheduledPool(THREADPOOL_HOMEKIT).schedule(this::flush, window,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush() {
+        List<Subscription> notifications;
+        synchronized (pendingNotifications) {
+            notifications = new ArrayList<>(pendingNotifications);
+            pendingNotifications.clear();
+            flushJob = null;
+        }
+        for (Subscription subscription : notifications) {
+            if (subscriptionsByName.get(subscription.itemKey) == subscription) {
+                notify(subscription);
+            } else {
+                droppedCount.incrementAndGet();
+            }
+        }
+        logger.trace("Notified {} characteristic changes ({})", notifications.size(), this);
+    }
+
+    private void notify(Subscription subscription) {
+        notifiedCount.incrementAndGet();
+        try {
+            subscription.callback.changed();
+        } catch (Exception e) {
+            logger.debug("Could not notify change of {}: {}", subscription.itemKey.item.getName(), e.getMessage());
+        }
+    }
+
+    private class Subscription implements StateChangeListener {
+        private final ItemKey itemKey;
+        private final HomekitCharacteristicChangeCallback callback;
+
+        public Subscription(ItemKey itemKey, HomekitCharacteristicChangeCallback callback) {
+            this.itemKey = itemKey;
+            this.callback = callback;
+        }
 
         @Override
-        public abstract void stateChanged(Item item, State oldState, State newState);
+        public void stateChanged(Item item, State oldState, State newState) {
+            changed(this);
+        }
 
         @Override
-        default public void stateUpdated(Item item, State state) {
+        public void stateUpdated(Item item, State state) {
             // Do nothing on non-change update
         }
     }
@@ -8,11 +8,19 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.storage.Storage;
 import org.openhab.io.homekit.internal.accessories.HomekitAccessoryFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,18 +31,121 @@ import com.beowulfe.hap.HomekitRoot;
  * Listens for changes to the item registry. When changes are detected, check
  * for Homekit tags and, if present, add the items to the HomekitAccessoryRegistry.
  *
+ * Changes are collected until no change has been received for {@link #QUIET_PERIOD}
+ * milliseconds, at most for {@link #MAX_DELAY} milliseconds. They are then applied
+ * together, so that the configuration of the bridge changes only once.
+ *
  * @author Andy Lintner
  */
 public class HomekitChangeListener implements ItemRegistryChangeListener {
 
+    private static final String THREADPOOL_HOMEKIT = "homekit";
+    static final long QUIET_PERIOD = 500;
+    static final long MAX_DELAY = 5000;
+
     private ItemRegistry itemRegistry;
     private HomekitAccessoryUpdater updater = new HomekitAccessoryUpdater();
     private Logger logger = LoggerFactory.getLogger(HomekitChangeListener.class);
     private final HomekitAccessoryRegistry accessoryRegistry = new HomekitAccessoryRegistry();
     private HomekitSettings settings;
 
+    private final Map<String, PendingChange> pendingChanges = new LinkedHashMap<>();
+    private boolean pendingRebuild;
+    private long firstPendingTime;
+    private ScheduledFuture<?> applyJob;
+
+    @Override
+    public void added(Item item) {
+        synchronized (pendingChanges) {
+            if (!pendingRebuild) {
+                pendingChanges.computeIfAbsent(item.getName(), name -> new PendingChange(null)).newItem = item;
+            }
+            scheduleApply();
+        }
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        synchronized (pendingChanges) {
+            pendingRebuild = true;
+            pendingChanges.clear();
+            scheduleApply();
+        }
+    }
+
     @Override
-    public synchronized void added(Item item) {
+    public void removed(Item item) {
+        synchronized (pendingChanges) {
+            if (!pendingRebuild) {
+                pendingChanges.computeIfAbsent(item.getName(), name -> new PendingChange(item)).newItem = null;
+            }
+            scheduleApply();
+        }
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        synchronized (pendingChanges) {
+            if (!pendingRebuild) {
+                pendingChanges.computeIfAbsent(oldElement.getName(),
+                        name -> new PendingChange(oldElement)).newItem = null;
+                pendingChanges.computeIfAbsent(element.getName(), name -> new PendingChange(null)).newItem = element;
+            }
+            scheduleApply();
+        }
+    }
+
+    /**
+     * (Re)schedules applying the pending changes after the quiet period, must be called
+     * while holding the lock of the pending changes
+     */
+    private void scheduleApply() {
+        long now = System.currentTimeMillis();
+        if (applyJob == null) {
+            firstPendingTime = now;
+        } else if (now - firstPendingTime < MAX_DELAY) {
+            applyJob.cancel(false);
+        } else {
+            return;
+        }
+        applyJob = ThreadPoolManager.getScheduledPool(THREADPOOL_HOMEKIT).schedule(this::applyPendingChanges,
+                QUIET_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the collected changes. An item removed and added again is recreated, as the
+     * accessory is bound to the item instance. While a rebuild is pending, no changes of
+     * single items are collected, as the rebuild reads all items from the registry.
+     */
+    private synchronized void applyPendingChanges() {
+        List<PendingChange> changes;
+        boolean rebuild;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges.values());
+            rebuild = pendingRebuild;
+            pendingChanges.clear();
+            pendingRebuild = false;
+            applyJob = null;
+        }
+
+        if (rebuild) {
+            logger.debug("Rebuilding all homekit accessories");
+            accessoryRegistry.clear();
+            itemRegistry.getAll().forEach(item -> add(item));
+        }
+        for (PendingChange change : changes) {
+            if (change.oldItem != null) {
+                remove(change.oldItem);
+            }
+            if (change.newItem != null) {
+                add(change.newItem);
+            }
+        }
+        logger.debug("Applied {} homekit item changes", changes.size());
+        accessoryRegistry.configurationChanged();
+    }
+
+    private void add(Item item) {
         HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
         if (taggedItem.isTagged()) {
             if (taggedItem.isRootDevice()) {
@@ -46,25 +157,13 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         }
     }
 
-    @Override
-    public void allItemsChanged(Collection<String> oldItemNames) {
-        clearAccessories();
-    }
-
-    @Override
-    public synchronized void removed(Item item) {
+    private void remove(Item item) {
         HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
         if (taggedItem.isTagged()) {
             accessoryRegistry.remove(taggedItem);
         }
     }
 
-    @Override
-    public void updated(Item oldElement, Item element) {
-        removed(oldElement);
-        added(element);
-    }
-
     public synchronized void clearAccessories() {
         accessoryRegistry.clear();
     }
@@ -73,10 +172,14 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         accessoryRegistry.setBridge(bridge);
     }
 
+    public synchronized void setStorage(Storage<String> storage) {
+        accessoryRegistry.setStorage(storage);
+    }
+
     public synchronized void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
         itemRegistry.addRegistryChangeListener(this);
-        itemRegistry.getAll().forEach(item -> added(item));
+        itemRegistry.getAll().forEach(item -> add(item));
     }
 
     public void setUpdater(HomekitAccessoryUpdater updater) {
@@ -85,12 +188,23 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
 
     public void setSettings(HomekitSettings settings) {
         this.settings = settings;
+        updater.setCoalesceWindow(settings.getCoalesceWindow());
     }
 
     public void stop() {
         if (this.itemRegistry != null) {
             this.itemRegistry.removeRegistryChangeListener(this);
         }
+        synchronized (pendingChanges) {
+            if (applyJob != null) {
+                applyJob.cancel(false);
+                applyJob = null;
+            }
+            pendingChanges.clear();
+            pendingRebuild = false;
+        }
+        updater.stop();
+        logger.debug("Characteristic change notifications: {}", updater);
     }
 
     private void createRootDevice(HomekitTaggedItem taggedItem) {
@@ -108,4 +222,16 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         logger.debug("Adding grouped homekit characteristic " + taggedItem.getItem().getName());
         accessoryRegistry.addCharacteristic(taggedItem);
     }
+
+    /**
+     * The item before the first and after the last collected change of an item name.
+     */
+    private static class PendingChange {
+        private final Item oldItem;
+        private Item newItem;
+
+        public PendingChange(Item oldItem) {
+            this.oldItem = oldItem;
+        }
+    }
 }
@@ -92,6 +92,7 @@ public class HomekitImpl implements Homekit {
         homekit = new HomekitServer(settings.getNetworkInterface(), settings.getPort());
         bridge = homekit.createBridge(new HomekitAuthInfoImpl(storageService, settings.getPin()), settings.getName(),
                 settings.getManufacturer(), settings.getModel(), settings.getSerialNumber());
+        changeListener.setStorage(storageService.getStorage("homekit"));
         bridge.start();
         changeListener.setBridge(bridge);
     }
@@ -35,6 +35,7 @@ public class HomekitSettings {
     private String thermostatAutoMode = "Auto";
     private String thermostatOffMode = "Off";
     private InetAddress networkInterface;
+    private int coalesceWindow = 100;
 
     public void fill(Dictionary<String, ?> properties) throws UnknownHostException {
         Object port = properties.get("port");
@@ -69,6 +70,13 @@ public class HomekitSettings {
         this.thermostatAutoMode = (String) properties.get("thermostatAutoMode");
         this.thermostatOffMode = (String) properties.get("thermostatOffMode");
 
+        Object coalesceWindow = properties.get("coalesceWindow");
+        if (coalesceWindow instanceof Number) {
+            this.coalesceWindow = ((Number) coalesceWindow).intValue();
+        } else if (coalesceWindow instanceof String) {
+            this.coalesceWindow = Integer.parseInt((String) coalesceWindow);
+        }
+
         String networkInterface = (String) properties.get("networkInterface");
         if (networkInterface == null) {
             this.networkInterface = InetAddress.getLocalHost();
@@ -140,6 +148,10 @@ public class HomekitSettings {
         return thermostatOffMode;
     }
 
+    public int getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -151,6 +163,7 @@ public class HomekitSettings {
         result = prime * result + (int) (temp ^ (temp >>> 32));
         result = prime * result + ((pin == null) ? 0 : pin.hashCode());
         result = prime * result + port;
+        result = prime * result + coalesceWindow;
         result = prime * result + ((thermostatAutoMode == null) ? 0 : thermostatAutoMode.hashCode());
         result = prime * result + ((thermostatCoolMode == null) ? 0 : thermostatCoolMode.hashCode());
         result = prime * result + ((thermostatHeatMode == null) ? 0 : thermostatHeatMode.hashCode());
@@ -187,6 +200,9 @@ public class HomekitSettings {
         if (port != other.port) {
             return false;
         }
+        if (coalesceWindow != other.coalesceWindow) {
+            return false;
+        }
         if (thermostatAutoMode == null) {
             if (other.thermostatAutoMode != null) {
                 return false;
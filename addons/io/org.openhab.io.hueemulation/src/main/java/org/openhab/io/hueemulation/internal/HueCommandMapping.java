@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.TypeParser;
+import org.openhab.io.hueemulation.internal.api.HueState;
+
+/**
+ * Maps a Hue state to the command accepted by an item. The command types are resolved once from the accepted
+ * command types of the item, so converting a state does not need to try all accepted types again.
+ *
+ * @author agent
+ *
+ */
+public class HueCommandMapping {
+    private final boolean acceptsHSB;
+    private final List<Class<? extends Command>> brightnessType;
+    private final Command onCommand;
+    private final Command offCommand;
+
+    public HueCommandMapping(Item item) {
+        List<Class<? extends Command>> types = item.getAcceptedCommandTypes();
+        acceptsHSB = types.contains(HSBType.class);
+        Command brightness = TypeParser.parseCommand(types, "0");
+        if (brightness != null) {
+            brightnessType = Collections.<Class<? extends Command>> singletonList(brightness.getClass());
+        } else {
+            brightnessType = null;
+        }
+        onCommand = TypeParser.parseCommand(types, "ON");
+        offCommand = TypeParser.parseCommand(types, "OFF");
+    }
+
+    /**
+     * Returns the command for the Hue state or null if the item does not accept any matching command
+     *
+     * @param hsb
+     *            the Hue state converted by {@link HueState#toHSBType()}
+     * @return
+     *         Command
+     */
+    public Command toCommand(HSBType hsb) {
+        if (hsb.getBrightness().intValue() > 0) {
+            // if state is on then send HSB, Brightness or ON
+            if (acceptsHSB) {
+                return hsb;
+            }
+            if (brightnessType != null) {
+                return TypeParser.parseCommand(brightnessType, hsb.getBrightness().toString());
+            }
+            return onCommand;
+        } else {
+            // if state is off, then send 0 or 0FF
+            if (brightnessType != null) {
+                return TypeParser.parseCommand(brightnessType, "0");
+            }
+            return offCommand;
+        }
+    }
+}
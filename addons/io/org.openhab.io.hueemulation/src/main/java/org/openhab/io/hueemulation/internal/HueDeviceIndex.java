@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+
+import com.google.gson.Gson;
+
+/**
+ * Index of the items exposed as Hue devices, these are the items tagged with one of the supported tags. The index
+ * follows the changes of the item registry and keeps the serialized JSON of each device, which is rebuilt on the
+ * next request after the state of the item has changed.
+ *
+ * @author agent
+ *
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener {
+    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting", "TargetTemperature" };
+    private static final String[] LIGHT_TAGS = new String[] { "Switchable", "Lighting" };
+
+    private final Gson gson = new Gson();
+    private final ItemRegistry itemRegistry;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final Map<String, Entry> unexposedEntries = new ConcurrentHashMap<String, Entry>();
+
+    public HueDeviceIndex(ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+        rebuild();
+    }
+
+    /**
+     * Returns the names of all indexed items
+     */
+    public Set<String> getItemNames() {
+        return entries.keySet();
+    }
+
+    /**
+     * Returns the indexed item or null if the item is not exposed
+     */
+    public Item getItem(String itemName) {
+        Entry entry = entries.get(itemName);
+        return entry != null ? entry.item : null;
+    }
+
+    /**
+     * Returns the exposed items which are lights, i.e. no group items and no items tagged as target temperature
+     */
+    public List<Item> getLights() {
+        List<Item> lights = new ArrayList<Item>();
+        for (Entry entry : entries.values()) {
+            if (!(entry.item instanceof GroupItem) && isLight(entry.item)) {
+                lights.add(entry.item);
+            }
+        }
+        return lights;
+    }
+
+    /**
+     * Returns the exposed group item tagged as light or null if there is no such group item
+     */
+    public GroupItem getGroupItem(String itemName) {
+        Item item = getItem(itemName);
+        return item instanceof GroupItem && isLight(item) ? (GroupItem) item : null;
+    }
+
+    /**
+     * Returns the exposed group items which are tagged as lights
+     */
+    public List<GroupItem> getGroupItems() {
+        List<GroupItem> groupItems = new ArrayList<GroupItem>();
+        for (Entry entry : entries.values()) {
+            if (entry.item instanceof GroupItem && isLight(entry.item)) {
+                groupItems.add((GroupItem) entry.item);
+            }
+        }
+        return groupItems;
+    }
+
+    /**
+     * Returns the lights of the group item, these are the members tagged as lights and the untagged members, which
+     * take the tag of the group
+     */
+    public List<Item> getLights(GroupItem groupItem) {
+        List<Item> lights = new ArrayList<Item>();
+        for (Item member : groupItem.getAllMembers()) {
+            if (isLight(member) || !isSupported(member)) {
+                lights.add(member);
+            }
+        }
+        return lights;
+    }
+
+    /**
+     * Returns the command mapping of the item. The mapping is created only once, the mapping of an item which is not
+     * exposed itself, e.g. an untagged member of a group, is kept until the item is changed or removed.
+     */
+    public HueCommandMapping getCommandMapping(Item item) {
+        Entry entry = entries.get(item.getName());
+        if (entry == null || entry.item != item) {
+            entry = unexposedEntries.get(item.getName());
+            if (entry == null || entry.item != item) {
+                entry = new Entry(item);
+                unexposedEntries.put(item.getName(), entry);
+            }
+        }
+        HueCommandMapping mapping = entry.commandMapping;
+        if (mapping == null) {
+            mapping = new HueCommandMapping(item);
+            entry.commandMapping = mapping;
+        }
+        return mapping;
+    }
+
+    /**
+     * Returns the JSON of the device or null if the item is not exposed
+     */
+    public String getDeviceJson(String itemName) {
+        Entry entry = entries.get(itemName);
+        return entry != null ? entry.getJson() : null;
+    }
+
+    /**
+     * Returns the JSON object of all devices, keyed by the item name
+     */
+    public String getDevicesJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(gson.toJson(entry.getKey())).append(':').append(entry.getValue().getJson());
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Discards the JSON of the device after the state of the item changed
+     */
+    public void stateChanged(String itemName) {
+        Entry entry = entries.get(itemName);
+        if (entry != null) {
+            entry.version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Indexes the item again as it is found in the item registry, after it has been added, removed or updated
+     */
+    public void refresh(String itemName) {
+        entries.remove(itemName);
+        unexposedEntries.remove(itemName);
+        try {
+            index(itemRegistry.getItem(itemName));
+        } catch (ItemNotFoundException e) {
+            // the item has been removed
+        }
+    }
+
+    @Override
+    public void added(Item element) {
+        index(element);
+    }
+
+    @Override
+    public void removed(Item element) {
+        entries.remove(element.getName());
+        unexposedEntries.remove(element.getName());
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        entries.remove(oldElement.getName());
+        unexposedEntries.remove(oldElement.getName());
+        index(element);
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        rebuild();
+    }
+
+    private void rebuild() {
+        entries.clear();
+        unexposedEntries.clear();
+        for (Item item : itemRegistry.getItems()) {
+            index(item);
+        }
+    }
+
+    private void index(Item item) {
+        if (isSupported(item)) {
+            entries.put(item.getName(), new Entry(item));
+        }
+    }
+
+    private static boolean isSupported(Item item) {
+        return hasTag(item, SUPPORTED_TAGS);
+    }
+
+    private static boolean isLight(Item item) {
+        return hasTag(item, LIGHT_TAGS);
+    }
+
+    private static boolean hasTag(Item item, String[] tags) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(tags, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     *
+     * @param item
+     * @return
+     *         HueDevice
+     */
+    public static HueDevice itemToDevice(Item item) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), item.getName());
+        return d;
+    }
+
+    /**
+     * An exposed item and the JSON of its device.
+     */
+    private class Entry {
+        private final Item item;
+        private final AtomicInteger version = new AtomicInteger();
+        private volatile Json json;
+        private volatile HueCommandMapping commandMapping;
+
+        private Entry(Item item) {
+            this.item = item;
+        }
+
+        private String getJson() {
+            // the version is read before the state, so a state change during the serialization is not missed
+            int currentVersion = version.get();
+            Json result = json;
+            if (result == null || result.version != currentVersion) {
+                result = new Json(currentVersion, gson.toJson(itemToDevice(item)));
+                json = result;
+            }
+            return result.value;
+        }
+    }
+
+    /**
+     * The JSON of a device and the state version it has been created from.
+     */
+    private static class Json {
+        private final int version;
+        private final String value;
+
+        private Json(int version, String value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
@@ -14,14 +14,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -31,22 +34,24 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
 import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.events.GroupItemStateChangedEvent;
+import org.eclipse.smarthome.core.items.events.ItemAddedEvent;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
-import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.items.events.ItemRemovedEvent;
+import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent;
+import org.eclipse.smarthome.core.items.events.ItemUpdatedEvent;
 import org.eclipse.smarthome.core.library.types.HSBType;
-import org.eclipse.smarthome.core.library.types.OnOffType;
 import org.eclipse.smarthome.core.types.Command;
-import org.eclipse.smarthome.core.types.State;
-import org.eclipse.smarthome.core.types.TypeParser;
 import org.openhab.io.hueemulation.internal.api.HueCreateUser;
-import org.openhab.io.hueemulation.internal.api.HueDataStore;
-import org.openhab.io.hueemulation.internal.api.HueDevice;
 import org.openhab.io.hueemulation.internal.api.HueErrorResponse;
 import org.openhab.io.hueemulation.internal.api.HueGroup;
 import org.openhab.io.hueemulation.internal.api.HueState;
@@ -64,7 +69,7 @@ import com.google.gson.Gson;
  *
  */
 @SuppressWarnings("serial")
-public class HueEmulationServlet extends HttpServlet {
+public class HueEmulationServlet extends HttpServlet implements EventSubscriber {
     private Logger logger = LoggerFactory.getLogger(HueEmulationServlet.class);
     private static final String CONFIG_PAIRING_ENABLED = "pairingEnabled";
     private static final String CONFIG_DISCOVERY_IP = "discoveryIp";
@@ -76,16 +81,20 @@ public class HueEmulationServlet extends HttpServlet {
     private static final String CHARSET = "utf-8";
     private static final String NEW_CLIENT_RESP = "[{\"success\":{\"username\": \"%s\"}}]";
     private static final String STATE_RESP = "[{\"success\":{\"/lights/%s/state/on\":%s}}]";
+    private static final String GROUP_ACTION_RESP = "[{\"success\":{\"/groups/%s/action/on\":%s}}]";
+    private static final String GROUP_ZERO = "0";
+    private static final Set<String> SUBSCRIBED_EVENT_TYPES = Collections.unmodifiableSet(
+            new HashSet<String>(Arrays.asList(ItemStateChangedEvent.TYPE, GroupItemStateChangedEvent.TYPE,
+                    ItemAddedEvent.TYPE, ItemRemovedEvent.TYPE, ItemUpdatedEvent.TYPE)));
     private static final File USER_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "usernames");
     private static final File UDN_FILE = new File(
             ConfigConstants.getUserDataFolder() + File.separator + "hueemulation" + File.separator + "udn");
 
-    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting", "TargetTemperature" };
-
     private Gson gson = new Gson();
     private HttpService httpService;
     private ItemRegistry itemRegistry;
+    private volatile HueDeviceIndex deviceIndex;
     private EventPublisher eventPublisher;
     private HueEmulationUpnpServer disco;
     private String udn;
@@ -155,9 +164,12 @@ public class HueEmulationServlet extends HttpServlet {
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        deviceIndex = new HueDeviceIndex(itemRegistry);
+        itemRegistry.addRegistryChangeListener(deviceIndex);
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        itemRegistry.removeRegistryChangeListener(deviceIndex);
         this.itemRegistry = null;
     }
 
@@ -177,6 +189,34 @@ public class HueEmulationServlet extends HttpServlet {
         this.httpService = null;
     }
 
+    @Override
+    public Set<String> getSubscribedEventTypes() {
+        return SUBSCRIBED_EVENT_TYPES;
+    }
+
+    @Override
+    public EventFilter getEventFilter() {
+        return null;
+    }
+
+    @Override
+    public void receive(Event event) {
+        HueDeviceIndex index = deviceIndex;
+        if (index == null) {
+            return;
+        }
+        if (event instanceof ItemStateChangedEvent) {
+            // also covers the GroupItemStateChangedEvent
+            index.stateChanged(((ItemStateChangedEvent) event).getItemName());
+        } else if (event instanceof ItemAddedEvent) {
+            index.refresh(((ItemAddedEvent) event).getItem().name);
+        } else if (event instanceof ItemRemovedEvent) {
+            index.refresh(((ItemRemovedEvent) event).getItem().name);
+        } else if (event instanceof ItemUpdatedEvent) {
+            index.refresh(((ItemUpdatedEvent) event).getItem().name);
+        }
+    }
+
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String path = req.getRequestURI();
@@ -254,16 +294,22 @@ public class HueEmulationServlet extends HttpServlet {
                     switch (pathParts.length) {
                         case 2:
                             /**
-                             * /api/{username}/group
+                             * /api/{username}/groups
                              */
-                            emptyResponse(req, resp);
+                            apiGroups(req, resp);
                             break;
                         case 3:
                             /**
-                             * /api/{username}/group/{id}
+                             * /api/{username}/groups/{id}
+                             */
+                            apiGroup(pathParts[2], req, resp);
+                            break;
+                        case 4:
+                            /**
+                             * /api/{username}/groups/{id}/action
                              */
-                            if ("0".equals(pathParts[2])) {
-                                apiGroupZero(req, resp);
+                            if ("action".equals(pathParts[3])) {
+                                apiGroupAction(pathParts[2], req, resp);
                             }
                             break;
                         default:
@@ -296,26 +342,7 @@ public class HueEmulationServlet extends HttpServlet {
             HSBType hsb = state.toHSBType();
             logger.debug("HuState " + state);
             logger.debug("HSBType " + hsb);
-            Command command = null;
-            if (hsb.getBrightness().intValue() > 0) {
-                // if state is on then send HSB, Brightness or ON
-                if (item.getAcceptedCommandTypes().contains(HSBType.class)) {
-                    command = hsb;
-                } else {
-                    // try and set the brightness level first
-                    command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), hsb.getBrightness().toString());
-                    if (command == null) {
-                        // if the item does not accept a number or String type, try ON
-                        command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "ON");
-                    }
-                }
-            } else {
-                // if state is off, then send 0 or 0FF
-                command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "0");
-                if (command == null) {
-                    command = TypeParser.parseCommand(item.getAcceptedCommandTypes(), "OFF");
-                }
-            }
+            Command command = deviceIndex.getCommandMapping(item).toCommand(hsb);
 
             if (command != null) {
                 logger.debug("sending {} to {}", command, id);
@@ -344,9 +371,12 @@ public class HueEmulationServlet extends HttpServlet {
      */
     private void apiLight(String id, HttpServletRequest req, HttpServletResponse resp) throws IOException {
         try {
-            Item item = itemRegistry.getItem(id);
+            String json = deviceIndex.getDeviceJson(id);
+            if (json == null) {
+                json = gson.toJson(HueDeviceIndex.itemToDevice(itemRegistry.getItem(id)));
+            }
             PrintWriter out = resp.getWriter();
-            out.write(gson.toJson(itemToDevice(item)));
+            out.write(json);
             out.close();
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found: " + id);
@@ -363,22 +393,109 @@ public class HueEmulationServlet extends HttpServlet {
      */
     public void apiLights(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         PrintWriter out = resp.getWriter();
-        out.write(gson.toJson(getHueDeviceNames()));
+        out.write(deviceIndex.getDevicesJson());
+        out.close();
+    }
+
+    /**
+     * Hue API call to get a listing of all groups, these are the exposed group items
+     *
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    public void apiGroups(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        Map<String, HueGroup> groups = new HashMap<String, HueGroup>();
+        for (GroupItem groupItem : deviceIndex.getGroupItems()) {
+            groups.put(groupItem.getName(), itemToGroup(groupItem));
+        }
+        PrintWriter out = resp.getWriter();
+        out.write(gson.toJson(groups));
+        out.close();
+    }
+
+    /**
+     * Hue API call to get a single group, Group 0 contains all lights
+     *
+     * @param id
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    public void apiGroup(String id, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        HueGroup group;
+        if (GROUP_ZERO.equals(id)) {
+            List<String> lights = new ArrayList<String>();
+            for (Item light : deviceIndex.getLights()) {
+                lights.add(light.getName());
+            }
+            group = new HueGroup(GROUP_ZERO, lights.toArray(new String[0]), new HueState());
+        } else {
+            GroupItem groupItem = deviceIndex.getGroupItem(id);
+            if (groupItem == null) {
+                apiServerError(req, resp, HueErrorResponse.NOT_AVAILABLE, "The Hue group could not be found");
+                return;
+            }
+            group = itemToGroup(groupItem);
+        }
+        PrintWriter out = resp.getWriter();
+        out.write(gson.toJson(group));
         out.close();
     }
 
     /**
-     * Hue API call to get a listing of Group 0
+     * Hue API call to set the state of all lights of a group. Only members tagged as lights and untagged members of
+     * a group item receive the command, so e.g. a target temperature is never set by a group action. The commands for
+     * all members are resolved before the first one is posted.
      *
+     * @param id
      * @param req
      * @param resp
      * @throws IOException
      */
-    public void apiGroupZero(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+    private void apiGroupAction(String id, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!req.getMethod().equals(METHOD_PUT)) {
+            apiServerError(req, resp, HueErrorResponse.METHOD_NOT_AVAILABLE, "Only PUT allowed for this resource");
+            return;
+        }
+        Collection<Item> members;
+        if (GROUP_ZERO.equals(id)) {
+            members = deviceIndex.getLights();
+        } else {
+            GroupItem groupItem = deviceIndex.getGroupItem(id);
+            if (groupItem == null) {
+                apiServerError(req, resp, HueErrorResponse.NOT_AVAILABLE, "The Hue group could not be found");
+                return;
+            }
+            members = deviceIndex.getLights(groupItem);
+        }
+
+        HueState state = gson.fromJson(req.getReader(), HueState.class);
+        HSBType hsb = state.toHSBType();
+        logger.debug("Group {} HuState {}", id, state);
+
+        List<Event> events = new ArrayList<Event>(members.size());
+        for (Item member : members) {
+            Command command = deviceIndex.getCommandMapping(member).toCommand(hsb);
+            if (command != null) {
+                events.add(ItemEventFactory.createCommandEvent(member.getName(), command));
+            } else {
+                logger.debug("Item {} of group {} does not accept Decimal, ON/OFF or String types", member.getName(),
+                        id);
+            }
+        }
+
+        if (events.isEmpty()) {
+            apiServerError(req, resp, HueErrorResponse.INTERNAL_ERROR,
+                    "The Hue group does not respond to that command");
+            return;
+        }
+        logger.debug("sending commands to {} items of group {}", events.size(), id);
+        for (Event event : events) {
+            eventPublisher.post(event);
+        }
         PrintWriter out = resp.getWriter();
-        String[] lights = getHueDeviceNames().keySet().toArray(new String[0]);
-        HueState action = new HueState();
-        out.write(gson.toJson(new HueGroup("0", lights, action)));
+        out.write(String.format(GROUP_ACTION_RESP, id, String.valueOf(state.on)));
         out.close();
     }
 
@@ -391,9 +508,7 @@ public class HueEmulationServlet extends HttpServlet {
      */
     public void apiDataStore(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         PrintWriter out = resp.getWriter();
-        HueDataStore ds = new HueDataStore();
-        ds.lights = getHueDevices();
-        out.write(gson.toJson(ds));
+        out.write("{\"lights\":" + deviceIndex.getDevicesJson() + "}");
     }
 
     /**
@@ -476,84 +591,20 @@ public class HueEmulationServlet extends HttpServlet {
     }
 
     /**
-     * Returns a map of all our items that have voice tags.
-     *
-     * @param username
-     * @return
-     *         Map <item name, HueDevice>
-     */
-    private Map<String, HueDevice> getHueDevices() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, HueDevice> devices = new HashMap<String, HueDevice>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), itemToDevice(item));
-        }
-        return devices;
-    }
-
-    /**
-     * Returns the item name and voice name of each item
-     *
-     * @param username
-     * @return
-     *         Map<item name, item voice tag>
-     */
-    public Map<String, String> getHueDeviceNames() {
-        Collection<Item> items = getTaggedItems();
-        Map<String, String> devices = new HashMap<String, String>();
-        Iterator<Item> it = items.iterator();
-        while (it.hasNext()) {
-            Item item = it.next();
-            devices.put(item.getName(), item.getLabel());
-        }
-        return devices;
-    }
-
-    /**
-     * Converts an Item to a HueDevice
-     *
-     * @param item
-     * @return
-     *         HueDevice
-     */
-    private HueDevice itemToDevice(Item item) {
-        State itemState = item.getState();
-        HueState hueState;
-        if (itemState instanceof HSBType) {
-            HSBType color = (HSBType) itemState;
-            hueState = new HueState(color);
-        } else if (itemState instanceof DecimalType) {
-            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
-            hueState = new HueState(bri);
-        } else if (itemState instanceof OnOffType) {
-            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
-            hueState = new HueState(bri);
-        } else {
-            hueState = new HueState((short) 0);
-        }
-
-        HueDevice d = new HueDevice(hueState, item.getLabel(), item.getName());
-        return d;
-    }
-
-    /**
-     * Gets all items that match our tag
+     * Converts a GroupItem to a HueGroup
      *
+     * @param groupItem
      * @return
+     *         HueGroup
      */
-    private Collection<Item> getTaggedItems() {
-        Collection<Item> items = new LinkedList<Item>();
-        for (Item item : itemRegistry.getItems()) {
-            for (String tag : item.getTags()) {
-                if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
-                    items.add(item);
-                    break;
-                }
-            }
+    private HueGroup itemToGroup(GroupItem groupItem) {
+        List<String> lights = new ArrayList<String>();
+        for (Item member : deviceIndex.getLights(groupItem)) {
+            lights.add(member.getName());
         }
-        return items;
+        HueGroup group = new HueGroup(groupItem.getLabel(), lights.toArray(new String[0]), new HueState());
+        group.state = HueDeviceIndex.itemToDevice(groupItem).state;
+        return group;
     }
 
     /**
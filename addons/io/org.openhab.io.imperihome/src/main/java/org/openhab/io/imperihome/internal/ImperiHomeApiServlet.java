@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Main OSGi service and HTTP servlet for ImperiHome integration.
@@ -111,9 +112,10 @@ public class ImperiHomeApiServlet extends HttpServlet {
         actionRegistry = new ActionRegistry(eventPublisher);
         itemProcessor = new ItemProcessor(itemRegistry, deviceRegistry, actionRegistry, imperiHomeConfig);
         roomListHandler = new RoomListHandler(deviceRegistry);
-        devicesListHandler = new DevicesListHandler(deviceRegistry);
+        devicesListHandler = new DevicesListHandler(deviceRegistry, gson);
         deviceActionHandler = new DeviceActionHandler(deviceRegistry);
-        deviceHistoryHandler = new DeviceHistoryHandler(deviceRegistry, persistenceServiceRegistry);
+        deviceHistoryHandler = new DeviceHistoryHandler(deviceRegistry, persistenceServiceRegistry,
+                imperiHomeConfig, gson);
 
         try {
             Dictionary<String, String> servletParams = new Hashtable<String, String>();
@@ -201,11 +203,15 @@ public class ImperiHomeApiServlet extends HttpServlet {
         if (URL_PATTERN_ROOMS.matcher(path).matches()) {
             response = roomListHandler.handle(req);
         } else if (URL_PATTERN_DEVICES.matcher(path).matches()) {
-            response = devicesListHandler.handle(req);
+            serveDevices(req, resp);
+            return;
         } else if (actionMatcher.matches()) {
             deviceActionHandler.handle(req, actionMatcher);
         } else if (historyMatcher.matches()) {
-            response = deviceHistoryHandler.handle(req, historyMatcher);
+            JsonWriter writer = new JsonWriter(resp.getWriter());
+            deviceHistoryHandler.handle(req, historyMatcher, writer);
+            writer.flush();
+            return;
         } else if (URL_PATTERN_SYSTEM.matcher(path).matches()) {
             response = systemHandler.handle(req);
         } else {
@@ -215,6 +221,24 @@ public class ImperiHomeApiServlet extends HttpServlet {
         resp.getWriter().write(gson.toJson(response));
     }
 
+    private void serveDevices(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        DevicesListHandler.Snapshot snapshot = devicesListHandler.handle(req);
+        String eTag = snapshot.getETag();
+        resp.setHeader("ETag", eTag);
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                if (tag.trim().equals(eTag)) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+        }
+
+        resp.getWriter().write(snapshot.getJson());
+    }
+
     private void setHeaders(HttpServletResponse response) {
         response.setCharacterEncoding(CHARSET);
         response.setContentType(APPLICATION_JSON);
@@ -25,6 +25,7 @@ public class ImperiHomeConfig {
 
     private String systemId;
     private String rootUrl;
+    private int historyMaxPoints;
 
     public void update(Map<String, Object> config) {
         Object cSystemId = config.get("system.id");
@@ -42,6 +43,16 @@ public class ImperiHomeConfig {
             }
         }
 
+        historyMaxPoints = 0;
+        Object historyMaxPointsObj = config.get("history.maxPoints");
+        if (historyMaxPointsObj != null && !historyMaxPointsObj.toString().isEmpty()) {
+            try {
+                historyMaxPoints = Integer.parseInt(historyMaxPointsObj.toString());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid history.maxPoints value: {}", historyMaxPointsObj);
+            }
+        }
+
         logger.info("Configuration updated");
     }
 
@@ -53,4 +64,8 @@ public class ImperiHomeConfig {
         return rootUrl;
     }
 
+    public int getHistoryMaxPoints() {
+        return historyMaxPoints;
+    }
+
 }
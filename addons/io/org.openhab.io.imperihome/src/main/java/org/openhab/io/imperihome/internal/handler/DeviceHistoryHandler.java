@@ -8,12 +8,13 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.net.URLDecoder;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
@@ -25,40 +26,53 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.imperihome.internal.ImperiHomeConfig;
 import org.openhab.io.imperihome.internal.model.HistoryItem;
-import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
 /**
- * Device history request handler.
+ * Device history request handler. The history values are written to the response while iterating the persistence
+ * results. If a maximum number of points is requested, the values are averaged over equally sized intervals.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
+    private static final String PARAM_POINTS = "points";
 
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
+    private final ImperiHomeConfig config;
+    private final Gson gson;
 
-    public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
+    public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry,
+            ImperiHomeConfig config, Gson gson) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
+        this.config = config;
+        this.gson = gson;
     }
 
-    public HistoryList handle(HttpServletRequest req, Matcher urlMatcher) {
+    public void handle(HttpServletRequest req, Matcher urlMatcher, JsonWriter writer) throws IOException {
         String deviceId, field;
         long start, end;
+        int maxPoints;
         try {
             deviceId = URLDecoder.decode(urlMatcher.group(1), CHARSET);
             field = URLDecoder.decode(urlMatcher.group(2), CHARSET);
             start = Long.parseLong(urlMatcher.group(3));
             end = Long.parseLong(urlMatcher.group(4));
+            String points = req.getParameter(PARAM_POINTS);
+            maxPoints = points != null ? Integer.parseInt(points) : config.getHistoryMaxPoints();
         } catch (UnsupportedEncodingException | NumberFormatException e) {
             throw new RuntimeException("Could not decode request params", e);
         }
@@ -68,52 +82,116 @@ public class DeviceHistoryHandler {
         AbstractDevice device = deviceRegistry.getDevice(deviceId);
         if (device == null) {
             logger.warn("Received history request for unknown device: {}", urlMatcher.group(0));
-            return null;
+            writer.nullValue();
+            return;
         }
 
         PersistenceService persistence = persistenceServiceRegistry.getDefault();
         if (persistence == null) {
             logger.warn("Could not retrieve default persistence service; can't serve history request");
-            return null;
+            writer.nullValue();
+            return;
         }
         if (!(persistence instanceof QueryablePersistenceService)) {
             logger.warn("Default persistence service is not queryable; can't serve history request");
-            return null;
+            writer.nullValue();
+            return;
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        serveHistory(device, (QueryablePersistenceService) persistence, start, end, maxPoints, writer);
     }
 
-    private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
-            long end) {
+    private void serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start, long end,
+            int maxPoints, JsonWriter writer) throws IOException {
         logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
 
         FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
                 .setEndDate(new Date(end));
 
-        List<HistoryItem> resultItems = new LinkedList<>();
         Iterable<HistoricItem> historicItems = persistence.query(criteria);
 
+        writer.beginObject();
+        writer.name("values");
+        writer.beginArray();
+
+        // Width of the interval a single point is averaged over, 0 if all values are returned
+        long interval = maxPoints > 0 && end > start ? (end - start + maxPoints - 1) / maxPoints : 0;
+        Average average = null;
+        int rows = 0;
+        int written = 0;
+
         Iterator<HistoricItem> iterator = historicItems.iterator();
-        if (!iterator.hasNext()) {
-            logger.info("Persistence returned no results for history query");
-        } else {
-            while (iterator.hasNext()) {
-                HistoricItem historicItem = iterator.next();
-                State state = historicItem.getState();
-                if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
-                }
+        while (iterator.hasNext()) {
+            HistoricItem historicItem = iterator.next();
+            rows++;
+            State state = historicItem.getState();
+            if (!(state instanceof DecimalType)) {
+                continue;
             }
 
-            if (resultItems.isEmpty()) {
-                logger.warn(
-                        "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+            long date = historicItem.getTimestamp().getTime();
+            BigDecimal value = ((DecimalType) state).toBigDecimal();
+            if (interval == 0) {
+                write(writer, new HistoryItem(date, value));
+                written++;
+                continue;
             }
+
+            long slot = (date - start) / interval;
+            if (average != null && average.slot != slot) {
+                write(writer, average.toHistoryItem());
+                written++;
+                average = null;
+            }
+            if (average == null) {
+                average = new Average(slot, date);
+            }
+            average.add(value);
+        }
+        if (average != null) {
+            write(writer, average.toHistoryItem());
+            written++;
+        }
+
+        writer.endArray();
+        writer.endObject();
+
+        if (rows == 0) {
+            logger.info("Persistence returned no results for history query");
+        } else if (written == 0) {
+            logger.warn("Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+        } else {
+            logger.debug("Wrote {} history values from {} persistence results", written, rows);
         }
+    }
+
+    private void write(JsonWriter writer, HistoryItem historyItem) {
+        gson.toJson(historyItem, HistoryItem.class, writer);
+    }
 
-        return new HistoryList(resultItems);
+    /**
+     * The average of the values within one interval, dated at the first value of the interval.
+     */
+    private static class Average {
+        private final long slot;
+        private final long date;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private int count;
+
+        private Average(long slot, long date) {
+            this.slot = slot;
+            this.date = date;
+        }
+
+        private void add(BigDecimal value) {
+            sum = sum.add(value);
+            count++;
+        }
+
+        private HistoryItem toHistoryItem() {
+            BigDecimal value = count == 1 ? sum : sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+            return new HistoryItem(date, value);
+        }
     }
 
 }
@@ -18,8 +18,11 @@ import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. The serialized device list is kept as a snapshot, which is only rebuilt after the
+ * version of the device registry has changed.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -28,12 +31,37 @@ public class DevicesListHandler {
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    // Distinguishes the ETags of this instance from those handed out before a restart
+    private final String instanceTag = Long.toHexString(System.currentTimeMillis());
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    private volatile Snapshot snapshot;
+
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
+    }
+
+    public Snapshot handle(HttpServletRequest req) {
+        // The version is read before the devices, so a change during the serialization is not missed
+        long version = deviceRegistry.getVersion();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current == null || current.version != version) {
+                current = new Snapshot(version, createJson());
+                snapshot = current;
+            }
+        }
+        return current;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
+    private String createJson() {
         DeviceList response = new DeviceList();
 
         Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
@@ -44,7 +72,28 @@ public class DevicesListHandler {
         response.setDevices(devices);
 
         logger.debug("Device list response: {}", response);
-        return response;
+        return gson.toJson(response);
+    }
+
+    /**
+     * The serialized device list of a registry version.
+     */
+    public class Snapshot {
+        private final long version;
+        private final String json;
+
+        private Snapshot(long version, String json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return "\"" + instanceTag + "-" + version + "\"";
+        }
     }
 
 }
@@ -210,6 +210,10 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
+        DeviceRegistry registry = deviceRegistry;
+        if (registry != null) {
+            registry.deviceChanged(this);
+        }
     }
 
     @Override
@@ -15,18 +15,21 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.imperihome.internal.model.Room;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 
 /**
- * The device registry stores created devices by ID.
+ * The device registry stores created devices by ID. The registry keeps a version which is incremented whenever a
+ * device is added or removed or the state of a device changes.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DeviceRegistry implements Iterable<AbstractDevice> {
 
     private final Map<String, AbstractDevice> devices;
+    private final AtomicLong version = new AtomicLong();
     private Set<Room> rooms;
 
     public DeviceRegistry() {
@@ -54,16 +57,33 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     }
 
     public void add(AbstractDevice device) {
+        device.setDeviceRegistry(this);
         devices.put(device.getId(), device);
         updateRooms();
+        version.incrementAndGet();
     }
 
     public AbstractDevice remove(String deviceId) {
         AbstractDevice removed = devices.remove(deviceId);
         updateRooms();
+        version.incrementAndGet();
         return removed;
     }
 
+    /**
+     * Returns the current version of the devices, any change of the devices results in a new version.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Called by a device after the state of its item has changed.
+     */
+    public void deviceChanged(AbstractDevice device) {
+        version.incrementAndGet();
+    }
+
     @Override
     public Iterator<AbstractDevice> iterator() {
         return devices.values().iterator();
@@ -75,6 +95,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         if (rooms != null) {
             rooms.clear();
         }
+        version.incrementAndGet();
     }
 
     private void updateRooms() {
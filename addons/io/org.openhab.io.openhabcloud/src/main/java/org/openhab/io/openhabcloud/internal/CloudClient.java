@@ -19,21 +19,23 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
-import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -77,6 +79,18 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the size of the content frames sent to the openHAB Cloud. Smaller chunks
+     * of a response are aggregated until a frame is full
+     */
+    private static final int RESPONSE_FRAME_SIZE = 64 * 1024;
+
+    /*
+     * This constant defines how long a partially filled frame is held back waiting for more content,
+     * so streaming responses are still forwarded promptly
+     */
+    private static final int RESPONSE_FRAME_LINGER = 20;
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -123,6 +137,11 @@ public class CloudClient {
      */
     private Socket socket;
 
+    /*
+     * This variable holds the window which limits the amount of response content queued in Socket.IO
+     */
+    private CloudSendWindow sendWindow;
+
     /*
      * This variable holds instance of CloudClientListener which provides callbacks to communicate
      * certain events from the openHAB Cloud back to openHAB
@@ -164,6 +183,7 @@ public class CloudClient {
         } catch (URISyntaxException e) {
             logger.error("Error creating Socket.IO: {}", e.getMessage());
         }
+        sendWindow = new CloudSendWindow(socket);
         socket.io().on(Manager.EVENT_TRANSPORT, new Emitter.Listener() {
             @Override
             public void call(Object... args) {
@@ -260,6 +280,10 @@ public class CloudClient {
         if (runningRequests != null) {
             runningRequests.clear();
         }
+        // The held back responses will not be sent anymore
+        if (sendWindow != null) {
+            sendWindow.failWaiting(new IOException("Disconnected from the openHAB Cloud service"));
+        }
     }
 
     /**
@@ -345,7 +369,8 @@ public class CloudClient {
                 return;
             }
             ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
             // If successfully submitted request to http client, add it to the list of currently
             // running requests to be able to cancel it if needed
             runningRequests.put(requestId, request);
@@ -505,6 +530,23 @@ public class CloudClient {
         }
     }
 
+    /**
+     * Send the item updates of a batch to openHAB Cloud
+     *
+     * @param itemStates updated item states by item name
+     *
+     */
+    public void sendItemUpdates(Map<String, String> itemStates) {
+        if (isConnected()) {
+            logger.debug("Sending updates for {} items", itemStates.size());
+            for (Map.Entry<String, String> itemState : itemStates.entrySet()) {
+                sendItemUpdate(itemState.getKey(), itemState.getValue());
+            }
+        } else {
+            logger.debug("No connection, {} Item updates are not sent", itemStates.size());
+        }
+    }
+
     /**
      * Returns true if openHAB Cloud connection is active
      */
@@ -522,6 +564,9 @@ public class CloudClient {
         } catch (Exception e) {
             logger.error(e.getMessage());
         }
+        if (sendWindow != null) {
+            sendWindow.failWaiting(new IOException("openHAB Cloud service connection shut down"));
+        }
         socket.disconnect();
     }
 
@@ -538,15 +583,27 @@ public class CloudClient {
     }
 
     /*
-     * An internal class which forwards response headers and data back to the openHAB Cloud
+     * An internal class which forwards response headers and data back to the openHAB Cloud. The content
+     * is sent in frames of RESPONSE_FRAME_SIZE bytes, all messages of a response are emitted in order
+     * under the lock of the listener.
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
         private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
         private boolean mHeadersSent = false;
 
+        private long mContentLength = -1;
+        private byte[] mFrame;
+        private int mFrameLength;
+        private ScheduledFuture<?> mLingerJob;
+
+        private final long mStarted = System.currentTimeMillis();
+        private long mFirstContent;
+        private long mBytes;
+        private int mFrames;
+
         public ResponseListener(int requestId) {
             mRequestId = requestId;
         }
@@ -563,8 +620,22 @@ public class CloudClient {
             return headersJSON;
         }
 
+        /*
+         * Returns the length of the decoded content or -1 if it is not known
+         */
+        private long getContentLength(HttpFields httpFields) {
+            if (httpFields.containsKey(HttpHeader.CONTENT_ENCODING.asString())) {
+                return -1;
+            }
+            try {
+                return httpFields.getLongField(HttpHeader.CONTENT_LENGTH.asString());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
         @Override
-        public void onComplete(Result result) {
+        public synchronized void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
             if (result.isFailed() && result.getResponse().getStatus() != HttpStatus.OK_200) {
@@ -573,25 +644,18 @@ public class CloudClient {
                 logger.warn(result.getResponseFailure().getMessage());
             }
 
-            /**
-             * What is this? In some cases where latency is very low the myopenhab service
-             * can receive responseFinished before the headers or content are received and I
-             * cannot find another workaround to prevent it.
-             */
-            ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
-
-                @Override
-                public void run() {
-                    JSONObject responseJson = new JSONObject();
-                    try {
-                        responseJson.put("id", mRequestId);
-                        socket.emit("responseFinished", responseJson);
-                        logger.debug("Finished responding to request {}", mRequestId);
-                    } catch (JSONException e) {
-                        logger.error(e.getMessage());
-                    }
-                }
-            }, 1, TimeUnit.MILLISECONDS);
+            // All frames are emitted before responseFinished under the same lock, so they arrive in order
+            sendFrame();
+            JSONObject responseJson = new JSONObject();
+            try {
+                responseJson.put("id", mRequestId);
+                sendWindow.emit("responseFinished", responseJson);
+                logger.debug("Finished responding to request {}: {} bytes in {} frames, first content after {} ms, "
+                        + "completed after {} ms", mRequestId, mBytes, mFrames,
+                        mFirstContent > 0 ? mFirstContent - mStarted : -1, System.currentTimeMillis() - mStarted);
+            } catch (JSONException e) {
+                logger.error(e.getMessage());
+            }
         }
 
         @Override
@@ -601,38 +665,91 @@ public class CloudClient {
             try {
                 responseJson.put("id", mRequestId);
                 responseJson.put("responseStatusText", "openHAB connection error: " + failure.getMessage());
-                socket.emit("responseError", responseJson);
+                sendWindow.emit("responseError", responseJson);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
-            logger.debug("Jetty received response content of size " + String.valueOf(content.remaining()));
+        public synchronized void onContent(Response response, ByteBuffer content, Callback callback) {
+            logger.trace("Jetty received response content of size {}", content.remaining());
+            if (mFirstContent == 0) {
+                mFirstContent = System.currentTimeMillis();
+            }
+            while (content.hasRemaining()) {
+                if (mFrame == null) {
+                    // the last frame of a response with known length is allocated with the exact size
+                    long remaining = mContentLength - mBytes;
+                    mFrame = new byte[remaining > 0 && remaining < RESPONSE_FRAME_SIZE ? (int) remaining
+                            : RESPONSE_FRAME_SIZE];
+                    mFrameLength = 0;
+                }
+                int length = Math.min(content.remaining(), mFrame.length - mFrameLength);
+                content.get(mFrame, mFrameLength, length);
+                mFrameLength += length;
+                if (mFrameLength == mFrame.length) {
+                    sendFrame();
+                }
+            }
+            if (mFrameLength > 0 && mLingerJob == null) {
+                mLingerJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flushLinger();
+                    }
+                }, RESPONSE_FRAME_LINGER, TimeUnit.MILLISECONDS);
+            }
+            // The content has been copied, Jetty delivers more content once the send queue has room
+            sendWindow.whenWritable(callback);
+        }
+
+        private synchronized void flushLinger() {
+            mLingerJob = null;
+            sendFrame();
+        }
+
+        /*
+         * Sends the buffered content, if any
+         */
+        private void sendFrame() {
+            if (mLingerJob != null) {
+                mLingerJob.cancel(false);
+                mLingerJob = null;
+            }
+            if (mFrameLength == 0) {
+                return;
+            }
+            byte[] body = mFrameLength == mFrame.length ? mFrame : Arrays.copyOf(mFrame, mFrameLength);
+            int length = mFrameLength;
+            mFrame = null;
+            mFrameLength = 0;
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
-                socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
+                responseJson.put("body", body);
+                sendWindow.emit("responseContentBinary", responseJson, length);
+                mBytes += length;
+                mFrames++;
+                logger.trace("Sent {} bytes of content to request {}", length, mRequestId);
             } catch (JSONException e) {
                 logger.error(e.getMessage());
             }
         }
 
         @Override
-        public void onHeaders(Response response) {
+        public synchronized void onHeaders(Response response) {
             if (!mHeadersSent) {
                 logger.debug("Jetty finished receiving response header");
                 JSONObject responseJson = new JSONObject();
                 mHeadersSent = true;
+                mContentLength = getContentLength(response.getHeaders());
                 try {
                     responseJson.put("id", mRequestId);
                     responseJson.put("headers", getJSONHeaders(response.getHeaders()));
                     responseJson.put("responseStatusCode", response.getStatus());
                     responseJson.put("responseStatusText", "OK");
-                    socket.emit("responseHeader", responseJson);
+                    sendWindow.emit("responseHeader", responseJson);
                     logger.debug("Sent headers to request {}", mRequestId);
                     logger.debug(responseJson.toString());
                 } catch (JSONException e) {
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.socket.client.Manager;
+import io.socket.client.Socket;
+import io.socket.emitter.Emitter;
+import io.socket.thread.EventThread;
+
+/**
+ * This class limits the amount of proxied response data which is queued for sending to the openHAB Cloud.
+ * Socket.IO hands all messages to the write buffer of its engine.io socket, which emits a drain event once the
+ * transport has written the whole buffer. A message counts as queued until the next drain event after it has been
+ * added to the write buffer, and while the socket is disconnected. While more than {@link #MAX_QUEUED_BYTES} are
+ * queued, the callbacks of the Jetty responses are held back, so Jetty stops reading the local responses until the
+ * queue has drained to half of the limit. If the engine.io socket is not accessible, a message counts as queued until
+ * it has been added to the write buffer. The held back callbacks fail when the connection is lost or closed.
+ *
+ * @author agent - Initial contribution
+ */
+public class CloudSendWindow {
+    /*
+     * Logger for this class
+     */
+    private static Logger logger = LoggerFactory.getLogger(CloudSendWindow.class);
+
+    /*
+     * This constant defines the number of queued bytes above which the responses are paused
+     */
+    private static final int MAX_QUEUED_BYTES = 512 * 1024;
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
+    /*
+     * The engine.io socket of the Socket.IO manager, the manager does not offer an accessor for it
+     */
+    private static final Field ENGINE_FIELD = getEngineField();
+
+    private final Socket socket;
+
+    private long queuedBytes;
+    private final List<Callback> waiting = new ArrayList<Callback>();
+
+    /*
+     * Bytes added to the write buffer since the last drain event, only accessed from the event thread
+     */
+    private long unsentBytes;
+
+    /*
+     * True if the drain listener is attached to the engine.io socket of the current connection, only accessed from
+     * the event thread
+     */
+    private boolean draining;
+
+    private final Emitter.Listener drainListener = new Emitter.Listener() {
+        @Override
+        public void call(Object... args) {
+            // messages emitted while disconnected are still buffered by Socket.IO
+            if (socket.connected() && unsentBytes > 0) {
+                long sent = unsentBytes;
+                unsentBytes = 0;
+                release(sent);
+            }
+        }
+    };
+
+    /**
+     * Creates the send window, which has to be done before the socket is connected
+     *
+     * @param socket the Socket.IO socket
+     */
+    public CloudSendWindow(final Socket socket) {
+        this.socket = socket;
+        // every (re)connect opens a new engine.io socket
+        socket.io().on(Manager.EVENT_OPEN, new Emitter.Listener() {
+            @Override
+            public void call(Object... args) {
+                io.socket.engineio.client.Socket engine = getEngine(socket.io());
+                if (engine != null) {
+                    engine.on(io.socket.engineio.client.Socket.EVENT_DRAIN, drainListener);
+                    draining = true;
+                } else {
+                    // without drain events the messages count as sent once they are in the write buffer
+                    draining = false;
+                    if (unsentBytes > 0) {
+                        long sent = unsentBytes;
+                        unsentBytes = 0;
+                        release(sent);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Emits a message which does not hold response content
+     *
+     * @param event name of the Socket.IO event
+     * @param data the message
+     */
+    public void emit(String event, JSONObject data) {
+        socket.emit(event, data);
+    }
+
+    /**
+     * Emits a message holding response content
+     *
+     * @param event name of the Socket.IO event
+     * @param data the message
+     * @param size number of content bytes in the message
+     */
+    public void emit(String event, JSONObject data, final int size) {
+        synchronized (this) {
+            queuedBytes += size;
+        }
+        socket.emit(event, data);
+        // runs on the event thread after the message has been added to the write buffer
+        EventThread.exec(new Runnable() {
+            @Override
+            public void run() {
+                if (draining) {
+                    unsentBytes += size;
+                } else {
+                    release(size);
+                }
+            }
+        });
+    }
+
+    /**
+     * Completes the callback right away if the queue is below the limit, otherwise as soon as the queue has drained
+     *
+     * @param callback the callback of the Jetty response
+     */
+    public void whenWritable(Callback callback) {
+        synchronized (this) {
+            if (queuedBytes > MAX_QUEUED_BYTES) {
+                waiting.add(callback);
+                return;
+            }
+        }
+        callback.succeeded();
+    }
+
+    /**
+     * Fails all held back callbacks, called when the connection is lost or closed
+     *
+     * @param cause the reason passed to the callbacks
+     */
+    public void failWaiting(final Throwable cause) {
+        final List<Callback> failed;
+        synchronized (this) {
+            if (waiting.isEmpty()) {
+                return;
+            }
+            failed = new ArrayList<Callback>(waiting);
+            waiting.clear();
+        }
+        logger.debug("Failing {} held back responses: {}", failed.size(), cause.getMessage());
+        ThreadPoolManager.getPool(THREADPOOL_OPENHABCLOUD).execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Callback callback : failed) {
+                    callback.failed(cause);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the number of bytes waiting to be sent
+     */
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    private void release(long size) {
+        final List<Callback> resumed;
+        long queued;
+        synchronized (this) {
+            queuedBytes -= size;
+            queued = queuedBytes;
+            if (waiting.isEmpty() || queued > MAX_QUEUED_BYTES / 2) {
+                return;
+            }
+            resumed = new ArrayList<Callback>(waiting);
+            waiting.clear();
+        }
+        logger.trace("Resuming {} responses, {} bytes queued", resumed.size(), queued);
+        // Jetty may continue reading in the callback, which must not block the event thread
+        ThreadPoolManager.getPool(THREADPOOL_OPENHABCLOUD).execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Callback callback : resumed) {
+                    callback.succeeded();
+                }
+            }
+        });
+    }
+
+    private static Field getEngineField() {
+        try {
+            Field field = Manager.class.getDeclaredField("engine");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | SecurityException e) {
+            logger.warn("Socket.IO does not expose the engine.io socket, the send window is released early: {}",
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private static io.socket.engineio.client.Socket getEngine(Manager manager) {
+        if (ENGINE_FIELD == null) {
+            return null;
+        }
+        try {
+            return (io.socket.engineio.client.Socket) ENGINE_FIELD.get(manager);
+        } catch (IllegalAccessException | IllegalArgumentException | ClassCastException e) {
+            logger.warn("Could not get the engine.io socket, the send window is released early: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -60,13 +60,18 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_UPDATE_INTERVAL = "updateInterval";
+    private static final String CFG_UPDATE_BATCH_SIZE = "updateBatchSize";
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
+    private static final long DEFAULT_UPDATE_INTERVAL = 1000;
+    private static final int DEFAULT_UPDATE_BATCH_SIZE = 100;
 
     private Logger logger = LoggerFactory.getLogger(CloudService.class);
 
     public static String clientVersion = null;
     private CloudClient cloudClient;
+    private ItemUpdateBatcher itemUpdateBatcher;
     private String cloudBaseUrl = null;
     protected ItemRegistry itemRegistry = null;
     protected EventPublisher eventPublisher = null;
@@ -149,6 +154,9 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
     protected void deactivate() {
         logger.debug("openHAB Cloud connector deactivated");
+        if (itemUpdateBatcher != null) {
+            itemUpdateBatcher.stop();
+        }
         cloudClient.shutdown();
     }
 
@@ -184,8 +192,26 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
             }
         }
 
+        long updateInterval = DEFAULT_UPDATE_INTERVAL;
+        int updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+        try {
+            if (config.get(CFG_UPDATE_INTERVAL) != null) {
+                updateInterval = Long.parseLong(config.get(CFG_UPDATE_INTERVAL).toString());
+            }
+            if (config.get(CFG_UPDATE_BATCH_SIZE) != null) {
+                updateBatchSize = Integer.parseInt(config.get(CFG_UPDATE_BATCH_SIZE).toString());
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid item update configuration, using defaults: {}", e.getMessage());
+            updateInterval = DEFAULT_UPDATE_INTERVAL;
+            updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+        }
+
         logger.debug("UUID = " + InstanceUUID.get() + ", secret = " + getSecret());
 
+        if (itemUpdateBatcher != null) {
+            itemUpdateBatcher.stop();
+        }
         if (cloudClient != null) {
             cloudClient.shutdown();
         }
@@ -194,6 +220,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
         cloudClient = new CloudClient(InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl, remoteAccessEnabled,
                 exposedItems);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
+        itemUpdateBatcher = new ItemUpdateBatcher(cloudClient, updateInterval, updateBatchSize);
         cloudClient.connect();
         cloudClient.setListener(this);
         NotificationAction.cloudService = this;
@@ -334,7 +361,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     public void receive(Event event) {
         ItemStateEvent ise = (ItemStateEvent) event;
         if (exposedItems != null && exposedItems.contains(ise.getItemName())) {
-            cloudClient.sendItemUpdate(ise.getItemName(), ise.getItemState().toString());
+            itemUpdateBatcher.update(ise.getItemName(), ise.getItemState().toString());
         }
     }
 
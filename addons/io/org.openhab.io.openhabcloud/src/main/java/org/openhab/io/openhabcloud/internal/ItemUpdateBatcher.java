@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class collects the item updates sent to the openHAB Cloud. Only the latest state of an item is kept
+ * until the next flush, and a state equal to the one last sent is not sent again. The collected updates are
+ * flushed after the update interval or as soon as the batch size is reached.
+ *
+ * @author agent - Initial contribution
+ */
+public class ItemUpdateBatcher {
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
+    private Logger logger = LoggerFactory.getLogger(ItemUpdateBatcher.class);
+
+    private final CloudClient cloudClient;
+    private final long interval;
+    private final int batchSize;
+
+    /*
+     * The states waiting for the next flush and the states last sent, by item name
+     */
+    private final Map<String, String> pendingStates = new LinkedHashMap<String, String>();
+    private final Map<String, String> sentStates = new HashMap<String, String>();
+
+    private ScheduledFuture<?> flushJob;
+
+    private long sent;
+    private long suppressed;
+
+    /**
+     * Constructor of ItemUpdateBatcher
+     *
+     * @param cloudClient the client sending the updates
+     * @param interval maximum time in milliseconds an update is held back, 0 sends every update right away
+     * @param batchSize number of pending updates which are flushed without waiting for the interval
+     */
+    public ItemUpdateBatcher(CloudClient cloudClient, long interval, int batchSize) {
+        this.cloudClient = cloudClient;
+        this.interval = interval;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds the updated state of an item to the next batch
+     *
+     * @param itemName the name of the item
+     * @param itemState updated item state
+     */
+    public synchronized void update(String itemName, String itemState) {
+        String pendingState = pendingStates.remove(itemName);
+        if (pendingState != null) {
+            // the pending state is replaced before it has been sent
+            suppressed++;
+        }
+        if (itemState.equals(sentStates.get(itemName))) {
+            suppressed++;
+            return;
+        }
+        pendingStates.put(itemName, itemState);
+        if (interval <= 0 || pendingStates.size() >= batchSize) {
+            flush();
+        } else if (flushJob == null) {
+            flushJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends all pending updates
+     */
+    public synchronized void flush() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+        if (pendingStates.isEmpty()) {
+            return;
+        }
+        // updates are only remembered if they reach the openHAB Cloud
+        if (cloudClient.isConnected()) {
+            sentStates.putAll(pendingStates);
+            sent += pendingStates.size();
+        }
+        // sent under the lock, so the batches are emitted in order
+        cloudClient.sendItemUpdates(pendingStates);
+        pendingStates.clear();
+    }
+
+    /**
+     * Discards the pending updates and stops the flush job
+     */
+    public synchronized void stop() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+        pendingStates.clear();
+        logger.debug("Item updates: {}", this);
+    }
+
+    /**
+     * Returns the number of item updates sent to the openHAB Cloud
+     */
+    public synchronized long getSent() {
+        return sent;
+    }
+
+    /**
+     * Returns the number of item updates which were not sent, as they were unchanged or replaced by a later update
+     */
+    public synchronized long getSuppressed() {
+        return suppressed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "sent: " + sent + ", suppressed: " + suppressed + ", pending: " + pendingStates.size();
+    }
+}
@@ -8,9 +8,13 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -21,7 +25,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -31,6 +34,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.smarthome.core.items.GroupItem;
@@ -47,12 +51,12 @@ import org.eclipse.smarthome.io.rest.RESTResource;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.core.FetchData;
-import org.rrd4j.core.FetchRequest;
-import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.stream.JsonWriter;
+
 /**
  * handles requests for chart series data from the CometVisu client
  * used by the diagram plugin
@@ -83,6 +87,8 @@ public class ChartResource implements RESTResource {
 
     private ItemRegistry itemRegistry;
 
+    private final RrdDbCache rrdDbCache = new RrdDbCache();
+
     @Context
     private UriInfo uriInfo;
 
@@ -108,6 +114,10 @@ public class ChartResource implements RESTResource {
         this.itemRegistry = null;
     }
 
+    protected void deactivate() {
+        rrdDbCache.clear();
+    }
+
     @GET
     @Produces({ MediaType.APPLICATION_JSON })
     public Response getChartSeries(@Context HttpHeaders headers, @QueryParam("rrd") String itemName,
@@ -157,11 +167,12 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
+            StreamingOutput data = null;
             if (persistenceService.getId().equals("rrd4j")) {
                 data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
             } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+                data = getPersistenceSeries(persistenceService, item, consilidationFunction, startTime, endTime,
+                        resolution);
             }
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
@@ -171,10 +182,8 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
-
+    public StreamingOutput getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            final ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
         filter.setBeginDate(timeBegin);
@@ -183,24 +192,45 @@ public class ChartResource implements RESTResource {
         filter.setOrdering(Ordering.ASCENDING);
 
         // Get the data from the persistence store
-        Iterable<HistoricItem> result = persistenceService.query(filter);
-        Iterator<HistoricItem> it = result.iterator();
-
-        // Iterate through the data
-        int dataCounter = 0;
-        while (it.hasNext()) {
-            dataCounter++;
-            HistoricItem historicItem = it.next();
-            org.eclipse.smarthome.core.types.State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+        final Iterable<HistoricItem> result = persistenceService.query(filter);
+        // consolidate the values to buckets of the requested resolution (in
+        // seconds)
+        final long bucketSize = Math.max(1, resolution * 1000);
+        logger.debug("'{}' querying item '{}' from '{}' to '{}' with resolution '{}'", persistenceService.getId(),
+                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), resolution);
+
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                JsonWriter writer = createWriter(output);
+                writer.beginArray();
+                Bucket bucket = new Bucket(consilidationFunction);
+                int dataCounter = 0;
+                int rowCounter = 0;
+                for (HistoricItem historicItem : result) {
+                    dataCounter++;
+                    org.eclipse.smarthome.core.types.State state = historicItem.getState();
+                    if (state instanceof DecimalType) {
+                        long time = historicItem.getTimestamp().getTime();
+                        long bucketStart = time - time % bucketSize;
+                        if (bucket.count > 0 && bucket.start != bucketStart) {
+                            writeRow(writer, bucket.start, bucket.getValue());
+                            rowCounter++;
+                            bucket.reset();
+                        }
+                        bucket.start = bucketStart;
+                        bucket.add(((DecimalType) state).doubleValue());
+                    }
+                }
+                if (bucket.count > 0) {
+                    writeRow(writer, bucket.start, bucket.getValue());
+                    rowCounter++;
+                }
+                writer.endArray();
+                writer.flush();
+                logger.debug("consolidated '{}' results to '{}' rows", dataCounter, rowCounter);
             }
-        }
-        logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
-                filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        };
     }
 
     /**
@@ -214,9 +244,9 @@ public class ChartResource implements RESTResource {
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+    public StreamingOutput getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+        final List<FetchData> data = new ArrayList<FetchData>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -229,62 +259,84 @@ public class ChartResource implements RESTResource {
                 itemNames.add(item.getName());
             }
             for (String itemName : itemNames) {
-                addRrdData(data, itemName, consilidationFunction, timeBegin, timeEnd, resolution);
+                FetchData fetchData = rrdDbCache.fetch(RRD_FOLDER + File.separator + itemName + ".rrd",
+                        consilidationFunction, Util.getTimestamp(timeBegin), Util.getTimestamp(timeEnd),
+                        resolution);
+                logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                        fetchData.getColumnCount());
+                data.add(fetchData);
             }
 
         } catch (FileNotFoundException e) {
             // rrd file does not exist, fallback to generic persistance service
             logger.debug("no rrd file found '{}'", (RRD_FOLDER + File.separator + item.getName() + ".rrd"));
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, consilidationFunction, timeBegin, timeEnd,
+                    resolution);
         } catch (Exception e) {
             logger.error(e.getLocalizedMessage() + ": fallback to generic persistance service");
-            return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
+            return getPersistenceSeries(persistenceService, item, consilidationFunction, timeBegin, timeEnd,
+                    resolution);
         }
-        return convertToRrd(data);
-    }
 
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
-        }
-        return rrd;
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                JsonWriter writer = createWriter(output);
+                writer.beginArray();
+                writeRrdRows(writer, data);
+                writer.endArray();
+                writer.flush();
+            }
+        };
     }
 
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
-        RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
+    /**
+     * merges the rows of the fetched data ordered by their timestamps, the
+     * values of all data having a row for a timestamp are written to one row
+     */
+    private void writeRrdRows(JsonWriter writer, List<FetchData> data) throws IOException {
+        int[] rows = new int[data.size()];
+        while (true) {
+            long time = Long.MAX_VALUE;
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] < data.get(i).getRowCount()) {
+                    time = Math.min(time, data.get(i).getTimestamps()[rows[i]]);
+                }
+            }
+            if (time == Long.MAX_VALUE) {
+                return;
+            }
 
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
+            writer.beginArray();
             // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
-            for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
+            writer.value(time * 1000);
+            writer.beginArray();
+            for (int i = 0; i < rows.length; i++) {
+                FetchData fetchData = data.get(i);
+                if (rows[i] < fetchData.getRowCount() && fetchData.getTimestamps()[rows[i]] == time) {
+                    double[][] values = fetchData.getValues();
+                    for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
+                        writer.value(formatDouble(values[dsIndex][rows[i]], "null", true));
+                    }
+                    rows[i]++;
+                }
             }
+            writer.endArray();
+            writer.endArray();
         }
-        rrdDb.close();
+    }
 
-        return data;
+    private static JsonWriter createWriter(OutputStream output) {
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+    }
+
+    private static void writeRow(JsonWriter writer, long time, double value) throws IOException {
+        writer.beginArray();
+        writer.value(time);
+        writer.beginArray();
+        writer.value(formatDouble(value, "null", true));
+        writer.endArray();
+        writer.endArray();
     }
 
     static String formatDouble(double x, String nanString, boolean forceExponents) {
@@ -296,4 +348,52 @@ public class ChartResource implements RESTResource {
         }
         return "" + x;
     }
+
+    /**
+     * Consolidates the values of a time span like the rrd archives do.
+     */
+    private static class Bucket {
+        private final ConsolFun consolidationFunction;
+        private long start;
+        private int count;
+        private double value;
+
+        private Bucket(ConsolFun consolidationFunction) {
+            this.consolidationFunction = consolidationFunction;
+        }
+
+        private void add(double newValue) {
+            if (count == 0) {
+                value = newValue;
+            } else {
+                switch (consolidationFunction) {
+                    case MIN:
+                        value = Math.min(value, newValue);
+                        break;
+                    case MAX:
+                        value = Math.max(value, newValue);
+                        break;
+                    case FIRST:
+                        break;
+                    case LAST:
+                        value = newValue;
+                        break;
+                    default:
+                        // AVERAGE and TOTAL
+                        value += newValue;
+                        break;
+                }
+            }
+            count++;
+        }
+
+        private double getValue() {
+            return consolidationFunction == ConsolFun.AVERAGE ? value / count : value;
+        }
+
+        private void reset() {
+            count = 0;
+            value = 0;
+        }
+    }
 }
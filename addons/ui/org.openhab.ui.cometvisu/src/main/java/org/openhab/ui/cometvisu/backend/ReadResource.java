@@ -11,12 +11,21 @@ package org.openhab.ui.cometvisu.backend;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,7 +44,6 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.Config;
@@ -55,16 +63,56 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private static final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    /**
+     * number of sent updates that are kept to resume the stream of reconnecting clients
+     */
+    private static final int HISTORY_SIZE = 100;
 
-    private final ExecutorService executorService;
+    /**
+     * seconds between the keep-alive events, which detect the closed connections of clients
+     */
+    private static final long KEEP_ALIVE_INTERVAL = 30;
+
+    /**
+     * seconds to wait for the connections of the clients to be closed on deactivation
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5;
+
+    private final ScheduledExecutorService executorService;
+
+    private final ScheduledFuture<?> keepAliveJob;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    /**
+     * the CometVisu addresses and their state class requested for an item by the connected clients, the maps are
+     * replaced on change
+     */
+    private ConcurrentMap<String, Map<String, Class<? extends State>>> addressesByItem =
+            new ConcurrentHashMap<String, Map<String, Class<? extends State>>>();
+
+    /**
+     * connected clients and the connected clients by the requested CometVisu addresses, only accessed by the
+     * executor
+     */
+    private Set<Subscription> subscriptions = new HashSet<Subscription>();
+    private Map<String, Set<Subscription>> subscriptionsByAddress = new HashMap<String, Set<Subscription>>();
+
+    /**
+     * state changes waiting to be sent to the clients
+     */
+    private Map<String, String> pendingStates = new LinkedHashMap<String, String>();
+    private boolean flushScheduled;
+
+    /**
+     * index of the last sent update and the last updates, only accessed by the executor. The index starts at the
+     * start time in microseconds, so the indexes of a previous start are always lower than the indexes of this start
+     * and a client can not resume the stream with them. The index stays below 2^53, the client reads it as a number.
+     */
+    private long lastIndex = System.currentTimeMillis() * 1000;
+    private LinkedList<Update> history = new LinkedList<Update>();
 
     @Context
     private UriInfo uriInfo;
@@ -78,9 +126,16 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
+        this.keepAliveJob = this.executorService.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                keepAlive();
+            }
+        }, KEEP_ALIVE_INTERVAL, KEEP_ALIVE_INTERVAL, TimeUnit.SECONDS);
     }
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
@@ -100,10 +155,40 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Closes the connections of all clients and stops the executor.
+     */
+    protected void deactivate() {
+        keepAliveJob.cancel(false);
+        executorService.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                for (Subscription subscription : new ArrayList<Subscription>(subscriptions)) {
+                    unsubscribe(subscription);
+                }
+            }
+        });
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Subscribes the connecting client to the state changes of the requested
+     * items. If the client sends the index of the last received update and
+     * all updates since then are available, only the missed changes are sent,
+     * otherwise the client receives the current states of all requested items.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the requested CometVisu addresses
+     * @param index
+     *            - index of the last received update
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -111,43 +196,164 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @GET
     @Produces(SseFeature.SERVER_SENT_EVENTS)
-    public Object getStates(@QueryParam("a") List<String> itemNames, @QueryParam("i") long index,
+    public Object getStates(@QueryParam("a") List<String> itemNames, @QueryParam("i") final long index,
             @QueryParam("t") long time) throws IOException, InterruptedException {
-        final EventOutput eventOutput = new EventOutput();
+        final Subscription subscription = new Subscription(new EventOutput());
 
-        this.itemNames = itemNames;
+        for (String cvItemName : itemNames) {
+            String[] parts = cvItemName.split(":");
+            String ohItemName = cvItemName;
+            Class<? extends State> stateClass = null;
+            if (parts.length == 2) {
+                String classPrefix = parts[0].toLowerCase();
+                if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                    stateClass = Config.itemTypeMapper.get(classPrefix);
+                } else {
+                    logger.debug("no type found for '{}'", classPrefix);
+                }
+                ohItemName = parts[1];
+            }
+            subscription.addAddress(ohItemName, cvItemName, stateClass);
+        }
 
-        broadcaster.add(eventOutput);
+        // the subscription is handled by the executor, so the initial states are always sent before any update
+        executorService.execute(new Runnable() {
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
-        // send the current states of all items to the client
-        if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
-                try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
-                        } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
-                        }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
+            @Override
+            public void run() {
+                subscribe(subscription, index);
+            }
+        });
+
+        return subscription.eventOutput;
+    }
+
+    /**
+     * Adds the subscription to the index and sends the initial or the missed
+     * states to the client.
+     */
+    private void subscribe(Subscription subscription, long lastReceivedIndex) {
+        subscriptions.add(subscription);
+        for (Map.Entry<String, Map<String, Class<? extends State>>> entry : subscription.items.entrySet()) {
+            addAddresses(entry.getKey(), entry.getValue());
+            for (String cvItemName : entry.getValue().keySet()) {
+                Set<Subscription> subscriptions = subscriptionsByAddress.get(cvItemName);
+                if (subscriptions == null) {
+                    subscriptions = new HashSet<Subscription>();
+                    subscriptionsByAddress.put(cvItemName, subscriptions);
+                }
+                subscriptions.add(subscription);
+            }
+        }
+
+        if (lastReceivedIndex > 0 && canResume(lastReceivedIndex)) {
+            List<StateBean> states = getMissedStates(subscription, lastReceivedIndex);
+            logger.debug("resuming stream at index {}, sending {} missed item states", lastReceivedIndex,
+                    states.size());
+            if (!states.isEmpty()) {
+                send(subscription, states, lastIndex);
+            }
+        } else {
+            List<StateBean> states = getCurrentStates(subscription);
+            logger.debug("initially sending {}/{} item states", states.size(), subscription.addresses.size());
+            send(subscription, states, lastIndex);
+        }
+
+        // listen to state changes of the requested items
+        registerItems(subscription.items.keySet());
+    }
+
+    /**
+     * Removes the subscription of a closed connection from the index, the
+     * addresses no other client requested are removed as well.
+     */
+    private void unsubscribe(Subscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            for (Map.Entry<String, Map<String, Class<? extends State>>> entry : subscription.items.entrySet()) {
+                for (String cvItemName : entry.getValue().keySet()) {
+                    Set<Subscription> addressSubscriptions = subscriptionsByAddress.get(cvItemName);
+                    if (addressSubscriptions != null && addressSubscriptions.remove(subscription)
+                            && addressSubscriptions.isEmpty()) {
+                        subscriptionsByAddress.remove(cvItemName);
+                        removeAddress(entry.getKey(), cvItemName);
                     }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
+                }
+            }
+        }
+        try {
+            subscription.eventOutput.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Adds the addresses of an item to the addresses of all clients.
+     */
+    private void addAddresses(String itemName, Map<String, Class<? extends State>> addresses) {
+        Map<String, Class<? extends State>> knownAddresses = addressesByItem.get(itemName);
+        if (knownAddresses == null || !knownAddresses.entrySet().containsAll(addresses.entrySet())) {
+            Map<String, Class<? extends State>> newAddresses = new HashMap<String, Class<? extends State>>();
+            if (knownAddresses != null) {
+                newAddresses.putAll(knownAddresses);
+            }
+            newAddresses.putAll(addresses);
+            addressesByItem.put(itemName, Collections.unmodifiableMap(newAddresses));
+        }
+    }
+
+    /**
+     * Removes an address of an item which is not requested by any client
+     * anymore, the item is not listened to anymore if none of its addresses
+     * is requested.
+     */
+    private void removeAddress(String itemName, String cvItemName) {
+        Map<String, Class<? extends State>> knownAddresses = addressesByItem.get(itemName);
+        if (knownAddresses == null || !knownAddresses.containsKey(cvItemName)) {
+            return;
+        }
+        if (knownAddresses.size() > 1) {
+            Map<String, Class<? extends State>> newAddresses = new HashMap<String, Class<? extends State>>(
+                    knownAddresses);
+            newAddresses.remove(cvItemName);
+            addressesByItem.put(itemName, Collections.unmodifiableMap(newAddresses));
+            return;
+        }
+        if (this.itemRegistry != null) {
+            try {
+                unregisterItem(this.itemRegistry.getItem(itemName));
+            } catch (ItemNotFoundException e) {
+                logger.debug("item '{}' not found", itemName);
+            }
+        }
+        addressesByItem.remove(itemName);
+    }
 
+    /**
+     * Returns true if all updates after the given index are available.
+     */
+    private boolean canResume(long index) {
+        if (index > lastIndex) {
+            return false;
+        }
+        return history.isEmpty() ? index == lastIndex : history.getFirst().index <= index + 1;
+    }
+
+    /**
+     * Returns the current states of all items requested by the client.
+     */
+    private List<StateBean> getCurrentStates(Subscription subscription) {
+        List<StateBean> states = new ArrayList<StateBean>();
+        if (this.itemRegistry == null) {
+            return states;
+        }
+        for (Map.Entry<String, Map<String, Class<? extends State>>> entry : subscription.items.entrySet()) {
+            try {
+                Item item = this.itemRegistry.getItem(entry.getKey());
+                for (Map.Entry<String, Class<? extends State>> address : entry.getValue().entrySet()) {
+                    StateBean itemState = new StateBean();
+                    itemState.name = address.getKey();
+                    Class<? extends State> stateClass = address.getValue();
                     if (stateClass != null) {
                         itemState.state = item.getStateAs(stateClass).toString();
                         logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
@@ -155,17 +361,118 @@ public class ReadResource implements EventBroadcaster, RESTResource {
                         itemState.state = item.getState().toString();
                     }
                     states.add(itemState);
-                } catch (ItemNotFoundException e) {
-                    logger.error(e.getLocalizedMessage());
                 }
+            } catch (ItemNotFoundException e) {
+                logger.error(e.getLocalizedMessage());
             }
-            logger.debug("initially broadcasting " + states.size() + "/" + itemNames.size() + " item states");
-            broadcaster.broadcast(SseUtil.buildEvent(states));
         }
-        // listen to state changes of the requested items
-        registerItems();
+        return states;
+    }
+
+    /**
+     * Returns the last states of the items requested by the client which
+     * changed after the given index.
+     */
+    private List<StateBean> getMissedStates(Subscription subscription, long index) {
+        Map<String, String> missed = new LinkedHashMap<String, String>();
+        for (Update update : history) {
+            if (update.index > index) {
+                for (Map.Entry<String, String> entry : update.states.entrySet()) {
+                    if (subscription.hasAddress(entry.getKey())) {
+                        missed.remove(entry.getKey());
+                        missed.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        return toStateBeans(missed);
+    }
+
+    private List<StateBean> toStateBeans(Map<String, String> states) {
+        List<StateBean> beans = new ArrayList<StateBean>(states.size());
+        for (Map.Entry<String, String> entry : states.entrySet()) {
+            StateBean stateBean = new StateBean();
+            stateBean.name = entry.getKey();
+            stateBean.state = entry.getValue();
+            beans.add(stateBean);
+        }
+        return beans;
+    }
+
+    /**
+     * Sends the pending state changes to the clients which requested them.
+     */
+    private void flush() {
+        Map<String, String> states;
+        synchronized (pendingStates) {
+            states = new LinkedHashMap<String, String>(pendingStates);
+            pendingStates.clear();
+            flushScheduled = false;
+        }
+        if (states.isEmpty()) {
+            return;
+        }
+
+        lastIndex++;
+        history.add(new Update(lastIndex, states));
+        if (history.size() > HISTORY_SIZE) {
+            history.removeFirst();
+        }
+
+        Map<Subscription, List<StateBean>> updates = new HashMap<Subscription, List<StateBean>>();
+        for (Map.Entry<String, String> entry : states.entrySet()) {
+            Set<Subscription> subscriptions = subscriptionsByAddress.get(entry.getKey());
+            if (subscriptions == null) {
+                continue;
+            }
+            StateBean stateBean = new StateBean();
+            stateBean.name = entry.getKey();
+            stateBean.state = entry.getValue();
+            for (Subscription subscription : subscriptions) {
+                List<StateBean> beans = updates.get(subscription);
+                if (beans == null) {
+                    beans = new ArrayList<StateBean>();
+                    updates.put(subscription, beans);
+                }
+                beans.add(stateBean);
+            }
+        }
+        for (Map.Entry<Subscription, List<StateBean>> update : updates.entrySet()) {
+            send(update.getKey(), update.getValue(), lastIndex);
+        }
+    }
+
+    private void send(Subscription subscription, List<StateBean> states, long index) {
+        if (subscription.eventOutput.isClosed()) {
+            logger.trace("client disconnected");
+            unsubscribe(subscription);
+            return;
+        }
+        try {
+            subscription.eventOutput.write(SseUtil.buildEvent(states, index));
+        } catch (IOException e) {
+            logger.debug("Error sending item states to client: {}", e.getMessage());
+            unsubscribe(subscription);
+        }
+    }
 
-        return eventOutput;
+    /**
+     * Sends a keep-alive event to all clients, so that closed connections are
+     * detected even if the requested items do not change.
+     */
+    private void keepAlive() {
+        for (Subscription subscription : new ArrayList<Subscription>(subscriptions)) {
+            if (subscription.eventOutput.isClosed()) {
+                unsubscribe(subscription);
+                continue;
+            }
+            try {
+                subscription.eventOutput.write(SseUtil.buildKeepAliveEvent());
+            } catch (IOException e) {
+                logger.trace("client disconnected: {}", e.getMessage());
+                unsubscribe(subscription);
+            }
+        }
     }
 
     /**
@@ -173,9 +480,18 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
+        registerItems(addressesByItem.keySet());
+    }
+
+    private void registerItems(Collection<String> itemNames) {
+        if (this.itemRegistry == null) {
+            return;
+        }
+        for (String itemName : itemNames) {
+            try {
+                registerItem(this.itemRegistry.getItem(itemName));
+            } catch (ItemNotFoundException e) {
+                logger.debug("item '{}' not found", itemName);
             }
         }
     }
@@ -189,52 +505,107 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName()))
+        if (item == null || !addressesByItem.containsKey(item.getName())) {
             return;
+        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).addStateChangeListener(stateEventListener);
         }
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName()))
+        if (item == null || !addressesByItem.containsKey(item.getName())) {
             return;
+        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Queues a state change for the clients which requested the item. Changes
+     * within the coalesce window are sent together, only the last state of an
+     * item is sent.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     *            - the {@link StateBean} of the changed item
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
-        executorService.execute(new Runnable() {
+        if (!(eventObject instanceof StateBean)) {
+            return;
+        }
+        StateBean stateBean = (StateBean) eventObject;
+        synchronized (pendingStates) {
+            if (executorService.isShutdown()) {
+                return;
+            }
+            pendingStates.remove(stateBean.name);
+            pendingStates.put(stateBean.name, stateBean.state);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        executorService.schedule(new Runnable() {
 
             @Override
             public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
+                flush();
             }
-        });
+        }, Config.COMETVISU_COALESCE_WINDOW, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+        return addressesByItem.get(item.getName());
+    }
+
+    /**
+     * A connected client and the requested CometVisu addresses per item.
+     */
+    private static class Subscription {
+        private final EventOutput eventOutput;
+        private final Map<String, Map<String, Class<? extends State>>> items =
+                new HashMap<String, Map<String, Class<? extends State>>>();
+        private final Set<String> addresses = new HashSet<String>();
+
+        public Subscription(EventOutput eventOutput) {
+            this.eventOutput = eventOutput;
+        }
+
+        public void addAddress(String itemName, String cvItemName, Class<? extends State> stateClass) {
+            Map<String, Class<? extends State>> itemAddresses = items.get(itemName);
+            if (itemAddresses == null) {
+                itemAddresses = new HashMap<String, Class<? extends State>>();
+                items.put(itemName, itemAddresses);
+            }
+            itemAddresses.put(cvItemName, stateClass);
+            addresses.add(cvItemName);
+        }
+
+        public boolean hasAddress(String cvItemName) {
+            return addresses.contains(cvItemName);
+        }
+    }
+
+    /**
+     * The item states sent with one index.
+     */
+    private static class Update {
+        private final long index;
+        private final Map<String, String> states;
+
+        public Update(long index, Map<String, String> states) {
+            this.index = index;
+            this.states = states;
+        }
     }
 }
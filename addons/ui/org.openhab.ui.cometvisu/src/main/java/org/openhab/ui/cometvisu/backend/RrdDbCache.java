@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.rrd4j.ConsolFun;
+import org.rrd4j.core.FetchData;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the least recently used rrd files open for reading, so that the
+ * charts of a page do not open the same files again and again. As rrd4j
+ * caches the header of an open file, a file is reopened after
+ * {@link #MAX_AGE} milliseconds to read the values written by the rrd4j
+ * persistence service in the meantime.
+ *
+ * @author agent
+ * @since 2.1.0
+ */
+class RrdDbCache {
+    private static final Logger logger = LoggerFactory.getLogger(RrdDbCache.class);
+
+    static final int MAX_SIZE = 16;
+    static final long MAX_AGE = 30000;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > MAX_SIZE) {
+                close(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * fetches the data from the rrd file, the file is held under the lock of
+     * the cache during the fetch, so it can not be closed while in use
+     *
+     * @param path
+     *            - path of the rrd file
+     * @param consolidationFunction
+     *            - the consolidation function of the archive
+     * @param start
+     *            - start time in seconds
+     * @param end
+     *            - end time in seconds
+     * @param resolution
+     *            - requested resolution in seconds
+     */
+    public synchronized FetchData fetch(String path, ConsolFun consolidationFunction, long start, long end,
+            long resolution) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry != null && System.currentTimeMillis() - entry.opened > MAX_AGE) {
+            entries.remove(path);
+            close(path, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            entry = new Entry(new RrdDb(path, true));
+            entries.put(path, entry);
+        }
+        try {
+            return entry.rrdDb.createFetchRequest(consolidationFunction, start, end, resolution).fetchData();
+        } catch (IOException e) {
+            entries.remove(path);
+            close(path, entry);
+            throw e;
+        }
+    }
+
+    /**
+     * closes all open rrd files
+     */
+    public synchronized void clear() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> entry = it.next();
+            close(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+    }
+
+    private void close(String path, Entry entry) {
+        try {
+            entry.rrdDb.close();
+        } catch (IOException e) {
+            logger.debug("error closing rrd file '{}': {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * An open rrd file and the time it has been opened.
+     */
+    private static class Entry {
+        private final RrdDb rrdDb;
+        private final long opened = System.currentTimeMillis();
+
+        private Entry(RrdDb rrdDb) {
+            this.rrdDb = rrdDb;
+        }
+    }
+}
@@ -46,6 +46,13 @@ public class Config {
 
     public static String COMETVISU_WEBAPP_USERFILE_FOLDER = File.separator + "cometvisu";
 
+    public static final String COMETVISU_COALESCE_WINDOW_PROPERTY = "coalesceWindow";
+
+    /*
+     * time in milliseconds in which state changes are collected before they are sent to the clients
+     */
+    public static long COMETVISU_COALESCE_WINDOW = 50;
+
     /*
      * path of the cometvisu backend (automatically prefixed by /rest/)
      * all the backend aliases must not be changed as they are hard coded in the CometVisu client
@@ -69,6 +69,23 @@ public class StateBeanMessageBodyWriter implements MessageBodyWriter<Object> {
      *         - CV-Protocol state update json format {d:{item:state,...}}
      */
     public String serialize(Object bean) {
+        return serializeStates(bean) + "}";
+    }
+
+    /**
+     *
+     * @param bean
+     *            - StateBean or List<StateBean>
+     * @param index
+     *            - index of the update
+     * @return String
+     *         - CV-Protocol state update json format {d:{item:state,...},i:index}
+     */
+    public String serialize(Object bean, long index) {
+        return serializeStates(bean) + ",\"i\":" + index + "}";
+    }
+
+    private String serializeStates(Object bean) {
         String msg = "{\"d\":{";
         if (bean instanceof StateBean) {
             StateBean stateBean = (StateBean) bean;
@@ -85,7 +102,7 @@ public class StateBeanMessageBodyWriter implements MessageBodyWriter<Object> {
                 msg += StringUtils.join(states, ",");
             }
         }
-        msg += "}}";
+        msg += "}";
         return msg;
     }
 }
@@ -83,7 +83,15 @@ public class VisuConfig {
     /**
      * relative path to the config XSD schema
      */
-    private final String schemaFile = "visu_config.xsd";
+    private static final String SCHEMA_FILE = "visu_config.xsd";
+
+    /**
+     * shared context for the config beans and the last parsed XSD schema
+     */
+    private static JAXBContext jaxbContext;
+    private static Schema schema;
+    private static String schemaPath;
+    private static long schemaLastModified;
 
     private CometVisuApp app;
 
@@ -114,13 +122,7 @@ public class VisuConfig {
         pagesBean.setScrollSpeed(new BigDecimal(0));
 
         // set relative path to XSD file
-        int requestFolders = req.getPathInfo().substring(1).split("/").length;
-        logger.debug("requestPath '{}' has '{}' parts", req.getPathInfo(), requestFolders);
-        String relXsd = "";
-        for (int i = 1; i < requestFolders; i++) {
-            relXsd += "../";
-        }
-        pagesBean.setNoNamespaceSchemaLocation(relXsd + schemaFile);
+        pagesBean.setNoNamespaceSchemaLocation(getSchemaLocation(req));
 
         Meta meta = new Meta();
         pagesBean.setMeta(meta);
@@ -128,17 +130,53 @@ public class VisuConfig {
         configHelper = new ConfigHelper(pagesBean, app, sitemap.getName());
         createPages(pagesBean);
 
-        return marshal(pagesBean, rootFolder.getAbsolutePath() + File.separator + schemaFile);
+        return marshal(pagesBean, rootFolder.getAbsolutePath() + File.separator + SCHEMA_FILE);
+    }
+
+    /**
+     * returns the path to the XSD schema relative to the requested config, the
+     * generated config only depends on the request by this path
+     *
+     * @param req
+     *            - the config request
+     * @return relative path to the XSD schema
+     */
+    public static String getSchemaLocation(HttpServletRequest req) {
+        int requestFolders = req.getPathInfo().substring(1).split("/").length;
+        String relXsd = "";
+        for (int i = 1; i < requestFolders; i++) {
+            relXsd += "../";
+        }
+        return relXsd + SCHEMA_FILE;
+    }
+
+    private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(SchemaPages.class);
+        }
+        return jaxbContext;
+    }
+
+    /**
+     * returns the parsed XSD schema, it is parsed again if the file has been
+     * modified
+     */
+    private static synchronized Schema getSchema(String xsdSchema) throws SAXException {
+        File file = new File(xsdSchema);
+        if (schema == null || !xsdSchema.equals(schemaPath) || file.lastModified() != schemaLastModified) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = schemaFactory.newSchema(file);
+            schemaPath = xsdSchema;
+            schemaLastModified = file.lastModified();
+        }
+        return schema;
     }
 
     private String marshal(Pages bean, String xsdSchema) {
         String res = "";
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(bean.getClass());
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = (xsdSchema == null || xsdSchema.trim().length() == 0) ? null
-                    : schemaFactory.newSchema(new File(xsdSchema));
-            Marshaller marshaller = jaxbContext.createMarshaller();
+            Schema schema = (xsdSchema == null || xsdSchema.trim().length() == 0) ? null : getSchema(xsdSchema);
+            Marshaller marshaller = getJaxbContext().createMarshaller();
             marshaller.setSchema(schema);
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.model.sitemap.Sitemap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the configs generated from the sitemaps. An entry is only valid for
+ * the sitemap instance it has been generated from, so a reloaded sitemap
+ * model generates a new config. All entries are removed when the items
+ * change.
+ *
+ * @author agent
+ * @since 2.1.0
+ */
+public class VisuConfigCache implements ItemRegistryChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(VisuConfigCache.class);
+
+    private Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * returns the cached config or null, if the config has not been generated
+     * for this sitemap instance
+     *
+     * @param sitemap
+     *            - the sitemap of the config
+     * @param key
+     *            - the key of the request specific attributes of the config
+     */
+    public Entry get(Sitemap sitemap, String key) {
+        Entry entry = entries.get(sitemap.getName() + "/" + key);
+        return entry != null && entry.sitemap == sitemap ? entry : null;
+    }
+
+    /**
+     * adds the generated config to the cache
+     *
+     * @param sitemap
+     *            - the sitemap of the config
+     * @param key
+     *            - the key of the request specific attributes of the config
+     * @param xml
+     *            - the generated config
+     * @return the new cache entry
+     */
+    public Entry put(Sitemap sitemap, String key, String xml) {
+        Entry entry = new Entry(sitemap, xml);
+        entries.put(sitemap.getName() + "/" + key, entry);
+        return entry;
+    }
+
+    /**
+     * removes all cached configs
+     */
+    public void invalidate() {
+        if (!entries.isEmpty()) {
+            logger.debug("invalidating {} cached configs", entries.size());
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void added(Item element) {
+        invalidate();
+    }
+
+    @Override
+    public void removed(Item element) {
+        invalidate();
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        invalidate();
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        invalidate();
+    }
+
+    /**
+     * A generated config and its ETag.
+     */
+    public static class Entry {
+        private final Sitemap sitemap;
+        private final String xml;
+        private final String eTag;
+
+        private Entry(Sitemap sitemap, String xml) {
+            this.sitemap = sitemap;
+            this.xml = xml;
+            this.eTag = "visu_config_" + sitemap.getName() + "_" + xml.length() + "_"
+                    + Integer.toHexString(xml.hashCode());
+        }
+
+        public String getXml() {
+            return xml;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
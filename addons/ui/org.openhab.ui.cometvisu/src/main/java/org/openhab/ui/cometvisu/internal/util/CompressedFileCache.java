@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the gzip compressed variants of the static files. The compressed
+ * files are stored in the cache folder named by the SHA-1 hash of the
+ * uncompressed content, so files with the same content share one variant. A
+ * variant is created on the first request of a file and is replaced when the
+ * length or the modification time of the file changes. The files of the
+ * variants are only known to the cache which created them, so a new cache
+ * should be cleared before it is used.
+ *
+ * @author agent
+ * @since 2.1.0
+ */
+public class CompressedFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(CompressedFileCache.class);
+
+    private static final int BUFFER_SIZE = 10240;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final File cacheFolder;
+
+    private Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param cacheFolder
+     *            - the folder the compressed files are stored in
+     */
+    public CompressedFileCache(File cacheFolder) {
+        this.cacheFolder = cacheFolder;
+    }
+
+    /**
+     * returns true if files of the content type benefit from compression
+     *
+     * @param contentType
+     *            - the content type of the file
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text") || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/json") || contentType.startsWith("application/xml")
+                || contentType.startsWith("image/svg+xml");
+    }
+
+    /**
+     * returns the gzip compressed variant of the file, the variant is created
+     * if the file has not been compressed yet or has changed since
+     *
+     * @param file
+     *            - the uncompressed file
+     * @return the compressed file
+     * @throws IOException
+     *             if the compressed file could not be created
+     */
+    public File getGzipFile(File file) throws IOException {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        Entry entry = entries.get(path);
+        if (entry != null && entry.matches(length, lastModified) && entry.compressedFile.exists()) {
+            hits.incrementAndGet();
+            return entry.compressedFile;
+        }
+        misses.incrementAndGet();
+
+        String hash = hash(file);
+        File compressedFile = new File(cacheFolder, hash + GZIP_SUFFIX);
+        synchronized (this) {
+            if (!compressedFile.exists()) {
+                compress(file, compressedFile);
+                logger.debug("compressed '{}' from {} to {} bytes", path, length, compressedFile.length());
+            }
+            Entry oldEntry = entries.put(path, new Entry(length, lastModified, compressedFile));
+            if (oldEntry != null && !oldEntry.compressedFile.equals(compressedFile) && !isUsed(oldEntry)) {
+                oldEntry.compressedFile.delete();
+            }
+        }
+        return compressedFile;
+    }
+
+    /**
+     * copies the file to the output stream, the servlet output stream is no
+     * channel, so the file is always copied through a buffer
+     *
+     * @param file
+     *            - the file to write
+     * @param output
+     *            - the output stream
+     */
+    public static void transfer(File file, OutputStream output) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            IOUtils.copyLarge(input, output, new byte[BUFFER_SIZE]);
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    /**
+     * returns the number of requests served from an existing compressed file
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * returns the number of requests which needed the file to be hashed and,
+     * if the content is new, to be compressed
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * removes all compressed files, including the files left by a previous
+     * cache
+     */
+    public synchronized void clear() {
+        entries.clear();
+        File[] files = cacheFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(GZIP_SUFFIX) || file.getName().endsWith(TMP_SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("files: %d, hits: %d, misses: %d", entries.size(), hits.get(), misses.get());
+    }
+
+    private boolean isUsed(Entry oldEntry) {
+        for (Entry entry : entries.values()) {
+            if (entry.compressedFile.equals(oldEntry.compressedFile)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compress(File file, File compressedFile) throws IOException {
+        if (!cacheFolder.exists() && !cacheFolder.mkdirs()) {
+            throw new IOException("Unable to create cache folder " + cacheFolder);
+        }
+        // write to a temporary file first, so that a concurrent request never
+        // sees an incomplete variant
+        File tmpFile = new File(cacheFolder, compressedFile.getName() + TMP_SUFFIX);
+        InputStream input = new FileInputStream(file);
+        OutputStream output = null;
+        try {
+            output = new GZIPOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE);
+            IOUtils.copyLarge(input, output);
+        } finally {
+            IOUtils.closeQuietly(input);
+            IOUtils.closeQuietly(output);
+        }
+        if (!tmpFile.renameTo(compressedFile)) {
+            tmpFile.delete();
+            throw new IOException("Unable to create compressed file " + compressedFile);
+        }
+    }
+
+    private static String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+        return DatatypeConverter.printHexBinary(digest.digest()).toLowerCase();
+    }
+
+    /**
+     * The compressed variant of a file and the file state it has been created
+     * from.
+     */
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final File compressedFile;
+
+        private Entry(long length, long lastModified, File compressedFile) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.compressedFile = compressedFile;
+        }
+
+        private boolean matches(long length, long lastModified) {
+            return this.length == length && this.lastModified == lastModified;
+        }
+    }
+}
@@ -47,6 +47,33 @@ public class SseUtil {
         return event;
     }
 
+    /**
+     * Creates a new {@link OutboundEvent} object containing the serialized
+     * eventObject and the index of the event, which the client can use to
+     * resume the stream.
+     *
+     * @param eventObject
+     *            - the eventObject to be included
+     * @param index
+     *            - the index of the event
+     * @return a new OutboundEvent.
+     */
+    public static OutboundEvent buildEvent(Object eventObject, long index) {
+        StateBeanMessageBodyWriter writer = new StateBeanMessageBodyWriter();
+        return new OutboundEvent.Builder().mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(writer.serialize(eventObject, index)).id(String.valueOf(index)).build();
+    }
+
+    /**
+     * Creates a new {@link OutboundEvent} object which only holds a comment,
+     * it is ignored by the client and is used to detect closed connections.
+     *
+     * @return a new OutboundEvent.
+     */
+    public static OutboundEvent buildKeepAliveEvent() {
+        return new OutboundEvent.Builder().comment("keep-alive").build();
+    }
+
     /**
      * Used to mark our current thread(request processing) that SSE blocking
      * should be enabled.
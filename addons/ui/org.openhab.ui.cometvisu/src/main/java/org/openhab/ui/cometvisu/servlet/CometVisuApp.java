@@ -27,6 +27,7 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.eclipse.smarthome.ui.icon.IconProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.config.VisuConfigCache;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.cm.ConfigurationException;
@@ -61,6 +62,8 @@ public class CometVisuApp {
 
     private PHProvider phpProvider;
 
+    private VisuConfigCache visuConfigCache = new VisuConfigCache();
+
     static protected Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
@@ -115,18 +118,23 @@ public class CometVisuApp {
 
     public void setItemUIRegistry(ItemUIRegistry itemUIRegistry) {
         this.itemUIRegistry = itemUIRegistry;
+        this.itemUIRegistry.addRegistryChangeListener(visuConfigCache);
     }
 
     public void unsetItemUIRegistry(ItemUIRegistry itemUIRegistry) {
+        itemUIRegistry.removeRegistryChangeListener(visuConfigCache);
+        visuConfigCache.invalidate();
         this.itemUIRegistry = null;
     }
 
     public void addSitemapProvider(SitemapProvider provider) {
         sitemapProviders.add(provider);
+        visuConfigCache.invalidate();
     }
 
     public void removeSitemapProvider(SitemapProvider provider) {
         sitemapProviders.remove(provider);
+        visuConfigCache.invalidate();
     }
 
     public ItemUIRegistry getItemUIRegistry() {
@@ -137,6 +145,10 @@ public class CometVisuApp {
         return sitemapProviders;
     }
 
+    public VisuConfigCache getVisuConfigCache() {
+        return visuConfigCache;
+    }
+
     protected void setHttpService(HttpService httpService) {
         this.httpService = httpService;
     }
@@ -171,6 +183,15 @@ public class CometVisuApp {
             if (properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY) != null) {
                 Config.COMETVISU_WEBAPP_ALIAS = (String) properties.get(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY);
             }
+            if (properties.get(Config.COMETVISU_COALESCE_WINDOW_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_COALESCE_WINDOW = Long
+                            .parseLong(properties.get(Config.COMETVISU_COALESCE_WINDOW_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid value for {}: {}", Config.COMETVISU_COALESCE_WINDOW_PROPERTY,
+                            properties.get(Config.COMETVISU_COALESCE_WINDOW_PROPERTY));
+                }
+            }
             for (String key : properties.keySet()) {
                 String[] parts = key.split(">");
                 String propKey = parts.length > 1 ? parts[1] : parts[0];
@@ -231,6 +252,9 @@ public class CometVisuApp {
     }
 
     private void unregisterServlet() {
+        if (servlet != null) {
+            logger.debug("compressed file cache: {}", servlet.getCompressedFileCache());
+        }
         httpService.unregister(Config.COMETVISU_WEBAPP_ALIAS);
     }
 
@@ -251,6 +275,7 @@ public class CometVisuApp {
             unregisterServlet();
         }
         readConfiguration(configProps);
+        visuConfigCache.invalidate();
         if (configProps.containsKey(Config.COMETVISU_WEBFOLDER_PROPERTY)
                 || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)) {
             registerServlet();
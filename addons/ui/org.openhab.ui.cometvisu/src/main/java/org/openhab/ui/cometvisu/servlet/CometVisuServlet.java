@@ -58,9 +58,11 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.config.ConfigHelper.Transform;
 import org.openhab.ui.cometvisu.internal.config.VisuConfig;
+import org.openhab.ui.cometvisu.internal.config.VisuConfigCache;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.DataBean;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.ItemBean;
 import org.openhab.ui.cometvisu.internal.rrs.beans.Feed;
+import org.openhab.ui.cometvisu.internal.util.CompressedFileCache;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -104,6 +106,8 @@ public class CometVisuServlet extends HttpServlet {
 
     private CometVisuApp cometVisuApp;
 
+    private CompressedFileCache compressedFileCache;
+
     public CometVisuServlet(String filesystemDir, CometVisuApp cometVisuApp) {
         root = filesystemDir;
         rootFolder = new File(root);
@@ -111,6 +115,11 @@ public class CometVisuServlet extends HttpServlet {
                 + Config.COMETVISU_WEBAPP_USERFILE_FOLDER);
         defaultUserDir = System.getProperty("user.dir");
         this.cometVisuApp = cometVisuApp;
+        compressedFileCache = new CompressedFileCache(
+                new File(org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder() + File.separator
+                        + "cometvisu" + File.separator + "compressed"));
+        // the variants of a previous run are not referenced by the new cache
+        compressedFileCache.clear();
 
         PHProvider prov = cometVisuApp.getPHProvider();
         if (prov != null) {
@@ -123,6 +132,10 @@ public class CometVisuServlet extends HttpServlet {
         this.initQuercusEngine();
     }
 
+    public CompressedFileCache getCompressedFileCache() {
+        return compressedFileCache;
+    }
+
     public void unsetPHProvider() {
         this.engine = null;
         this.phpEnabled = false;
@@ -208,12 +221,24 @@ public class CometVisuServlet extends HttpServlet {
             if (!requestedFile.exists()) {
                 Sitemap sitemap = getSitemap(matcher.group(2));
                 if (sitemap != null) {
-                    logger.debug("reading sitemap '{}'", sitemap);
-                    VisuConfig config = new VisuConfig(sitemap, cometVisuApp, rootFolder);
+                    String cacheKey = VisuConfig.getSchemaLocation(req);
+                    VisuConfigCache.Entry entry = cometVisuApp.getVisuConfigCache().get(sitemap, cacheKey);
+                    if (entry == null) {
+                        logger.debug("reading sitemap '{}'", sitemap);
+                        VisuConfig config = new VisuConfig(sitemap, cometVisuApp, rootFolder);
+                        entry = cometVisuApp.getVisuConfigCache().put(sitemap, cacheKey, config.getConfigXml(req));
+                    }
+
+                    resp.setHeader("ETag", entry.getETag());
+                    String ifNoneMatch = req.getHeader("If-None-Match");
+                    if (ifNoneMatch != null && matches(ifNoneMatch, entry.getETag())) {
+                        resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
+                    }
 
                     // logger.info("response: "+config.getConfigXml());
                     resp.setContentType(MediaType.APPLICATION_XML);
-                    resp.getWriter().write(config.getConfigXml(req));
+                    resp.getWriter().write(entry.getXml());
                     resp.flushBuffer();
 
                     return;
@@ -672,13 +697,17 @@ public class CometVisuServlet extends HttpServlet {
             contentType = "application/octet-stream";
         }
 
-        // If content type is text, then determine whether GZIP content encoding
-        // is supported by
-        // the browser and expand content type with the one and right character
-        // encoding.
-        if (contentType.startsWith("text")) {
+        // If content type is compressible (e.g. text, javascript), then
+        // determine whether GZIP content encoding is supported by the browser.
+        if (CompressedFileCache.isCompressible(contentType)) {
             String acceptEncoding = request.getHeader("Accept-Encoding");
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        // If content type is text, then expand content type with the one and
+        // right character encoding.
+        if (contentType.startsWith("text")) {
             contentType += ";charset=UTF-8";
         }
 
@@ -718,20 +747,34 @@ public class CometVisuServlet extends HttpServlet {
                 response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (content) {
+                    File gzipFile = null;
                     if (acceptsGzip) {
-                        // The browser accepts GZIP, so GZIP the content.
+                        // The browser accepts GZIP, so send the precompressed
+                        // content.
+                        try {
+                            gzipFile = compressedFileCache.getGzipFile(file);
+                        } catch (IOException e) {
+                            logger.warn("Unable to create compressed variant of '{}': {}", file, e.getMessage());
+                        }
+                    }
+
+                    if (gzipFile != null) {
                         response.setHeader("Content-Encoding", "gzip");
-                        output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        response.setHeader("Content-Length", String.valueOf(gzipFile.length()));
+                        CompressedFileCache.transfer(gzipFile, output);
                     } else {
-                        // Content length is not directly predictable in case of
-                        // GZIP.
-                        // So only add it if there is no means of GZIP, else
-                        // browser will hang.
-                        response.setHeader("Content-Length", String.valueOf(r.length));
-                    }
+                        if (acceptsGzip) {
+                            // Fall back to GZIP the content. Content length is
+                            // not directly predictable in this case.
+                            response.setHeader("Content-Encoding", "gzip");
+                            output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
+                        } else {
+                            response.setHeader("Content-Length", String.valueOf(r.length));
+                        }
 
-                    // Copy full range.
-                    copy(input, output, r.start, r.length);
+                        // Copy full range.
+                        copy(input, output, r.start, r.length);
+                    }
                 }
 
             } else if (ranges.size() == 1) {